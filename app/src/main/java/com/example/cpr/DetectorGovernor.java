@@ -0,0 +1,77 @@
+package com.example.cpr;
+
+import android.util.Log;
+
+import com.example.cpr.core.QualityGovernor;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.pose.Pose;
+import com.google.mlkit.vision.pose.PoseDetection;
+import com.google.mlkit.vision.pose.PoseDetector;
+import com.google.mlkit.vision.pose.accurate.AccuratePoseDetectorOptions;
+import com.google.mlkit.vision.pose.defaults.PoseDetectorOptions;
+
+// Holds both the fast and accurate ML Kit pose detectors and lets a QualityGovernor pick
+// between them from measured latency and thermal status. Both clients stay open and are
+// warmed up front, so a switch never pays model loading on a live frame.
+// Only used from the analysis executor, including construction of the clients in warmUp(),
+// which keeps detector start-up off the main thread and in parallel with camera binding.
+class DetectorGovernor {
+    private static final String TAG = "CPRGovernor";
+    private static final int WARM_UP_SIZE = 256;
+
+    private final QualityGovernor governor;
+    private PoseDetector fastDetector;
+    private PoseDetector accurateDetector;
+
+    DetectorGovernor(QualityGovernor governor) {
+        this.governor = governor;
+    }
+
+    // Creates both clients and runs a synthetic frame through each, so the models are loaded
+    // and the first inference has been paid before a camera frame arrives. Must run on the
+    // analysis executor before the first frame; the task completes once both are warm.
+    Task<Void> warmUp() {
+        fastDetector = PoseDetection.getClient(new PoseDetectorOptions.Builder()
+                .setDetectorMode(PoseDetectorOptions.STREAM_MODE)
+                .build());
+        accurateDetector = PoseDetection.getClient(new AccuratePoseDetectorOptions.Builder()
+                .setDetectorMode(AccuratePoseDetectorOptions.STREAM_MODE)
+                .build());
+
+        byte[] blank = new byte[YuvConverter.nv21Size(WARM_UP_SIZE, WARM_UP_SIZE)];
+        InputImage image = InputImage.fromByteArray(blank, WARM_UP_SIZE, WARM_UP_SIZE, 0,
+                InputImage.IMAGE_FORMAT_NV21);
+        // Warm the detector the first frames will use first
+        PoseDetector first = getDetector();
+        Task<Pose> firstWarmUp = first.process(image);
+        Task<Pose> secondWarmUp = (first == fastDetector ? accurateDetector : fastDetector).process(image);
+        return Tasks.whenAll(firstWarmUp, secondWarmUp);
+    }
+
+    PoseDetector getDetector() {
+        return governor.getMode() == QualityGovernor.Mode.FAST ? fastDetector : accurateDetector;
+    }
+
+    void onDetectionComplete(long latencyNanos, long nowNanos) {
+        QualityGovernor.Mode previous = governor.getMode();
+        QualityGovernor.Mode mode = governor.onDetection(latencyNanos, nowNanos);
+        if (mode != previous) {
+            Log.i(TAG, "Switched to " + mode + " pose detector, mean latency "
+                    + governor.getLastSwitchMeanLatencyNanos() / 1_000_000 + " ms"
+                    + (governor.wasLastSwitchThermal() ? " (thermal)" : ""));
+        }
+    }
+
+    void onThermalStatus(int status) {
+        governor.onThermalStatus(status);
+    }
+
+    void close() {
+        if (fastDetector != null) {
+            fastDetector.close();
+            accurateDetector.close();
+        }
+    }
+}
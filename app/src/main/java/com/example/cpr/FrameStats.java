@@ -0,0 +1,77 @@
+package com.example.cpr;
+
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Frame counters for the analysis pipeline. Captured frames come from the camera session,
+// so anything captured but never received was dropped by STRATEGY_KEEP_ONLY_LATEST. Skipped
+// frames were received but released without analysis because every in-flight slot was busy.
+// Predicted frames were analysed from tracked landmarks without running the detector. Idle
+// frames were released by the motion gate because nothing was moving in front of the camera.
+class FrameStats {
+    private static final String TAG = "CPRFrameStats";
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong idle = new AtomicLong();
+    private final AtomicLong predicted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Only touched from the analysis thread
+    private long lastReportTime = 0;
+    private long lastReportProcessed = 0;
+    // Written on the analysis thread, read by the performance HUD on the main thread
+    private volatile float analysisFps = 0f;
+
+    void onFrameCaptured() { captured.incrementAndGet(); }
+    void onFrameReceived() { received.incrementAndGet(); }
+    void onFrameSkipped() { skipped.incrementAndGet(); }
+    void onFrameIdle() { idle.incrementAndGet(); }
+    void onFramePredicted() { predicted.incrementAndGet(); }
+    void onFrameProcessed() { processed.incrementAndGet(); }
+    void onFrameFailed() { failed.incrementAndGet(); }
+
+    long getCaptured() { return captured.get(); }
+    long getReceived() { return received.get(); }
+    long getSkipped() { return skipped.get(); }
+    long getIdle() { return idle.get(); }
+    long getPredicted() { return predicted.get(); }
+    long getProcessed() { return processed.get(); }
+    long getFailed() { return failed.get(); }
+
+    long getDropped() {
+        // Capture callbacks are only wired up when Camera2 interop is available
+        long capturedFrames = captured.get();
+        return capturedFrames == 0 ? 0 : Math.max(0, capturedFrames - received.get());
+    }
+
+    float getAnalysisFps() { return analysisFps; }
+
+    void reportIfDue(long nowNanos) {
+        if (lastReportTime == 0) {
+            lastReportTime = nowNanos;
+            lastReportProcessed = processed.get();
+            return;
+        }
+        long elapsed = nowNanos - lastReportTime;
+        if (elapsed < REPORT_INTERVAL_NANOS) {
+            return;
+        }
+
+        long processedFrames = processed.get();
+        analysisFps = (processedFrames - lastReportProcessed) * 1e9f / elapsed;
+        lastReportTime = nowNanos;
+        lastReportProcessed = processedFrames;
+
+        Log.i(TAG, String.format(Locale.US,
+                "Analysis %.1f fps, captured %d, received %d, skipped %d, idle %d, processed %d "
+                        + "(predicted %d), failed %d, dropped %d",
+                analysisFps, getCaptured(), getReceived(), getSkipped(), getIdle(), processedFrames,
+                getPredicted(), getFailed(), getDropped()));
+    }
+}
@@ -4,18 +4,31 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.util.AttributeSet;
+import android.view.Display;
+import android.view.Surface;
 import android.view.View;
-import java.util.ArrayList;
-import java.util.List;
+
+import com.example.cpr.core.PipelineProfiler;
+
+import java.util.Arrays;
 
 public class GraphicOverlay extends View {
+    private static final Graphic[] NO_GRAPHICS = new Graphic[0];
+
+    // Graphics are added once and update themselves; onDraw reads a snapshot without the lock
     private final Object lock = new Object();
-    private final List<Graphic> graphics = new ArrayList<>();
+    private volatile Graphic[] graphics = NO_GRAPHICS;
     private final Matrix transformationMatrix = new Matrix();
 
-    private int imageWidth;
-    private int imageHeight;
+    // Width in the high bits, then height and the source's Surface rotation in the low two bits,
+    // so all three are published together
+    private volatile long imageSource;
+    private long appliedImageSource = -1;
+    private int appliedDisplayRotation = -1;
     private float scaleFactor = 1.0f;
+    private float offsetX;
+    private float offsetY;
+    private PipelineProfiler profiler;
 
     public GraphicOverlay(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -38,12 +51,19 @@ public class GraphicOverlay extends View {
             return vertical * overlay.scaleFactor;
         }
 
+        // Pixel coordinates of the upright image onto the view, ignoring any display rotation
+        // since the source was set; getTransformationMatrix includes it
         public float translateX(float x) {
-            return scaleX(x);
+            return scaleX(x) + overlay.offsetX;
         }
 
         public float translateY(float y) {
-            return scaleY(y);
+            return scaleY(y) + overlay.offsetY;
+        }
+
+        // Maps coordinates normalised to the image source size onto the view
+        public Matrix getTransformationMatrix() {
+            return overlay.transformationMatrix;
         }
 
         public void postInvalidate() {
@@ -53,47 +73,112 @@ public class GraphicOverlay extends View {
 
     public void clear() {
         synchronized (lock) {
-            graphics.clear();
+            graphics = NO_GRAPHICS;
         }
         postInvalidate();
     }
 
     public void add(Graphic graphic) {
         synchronized (lock) {
-            graphics.add(graphic);
+            Graphic[] updated = Arrays.copyOf(graphics, graphics.length + 1);
+            updated[graphics.length] = graphic;
+            graphics = updated;
         }
     }
 
     public void remove(Graphic graphic) {
         synchronized (lock) {
-            graphics.remove(graphic);
+            for (int i = 0; i < graphics.length; i++) {
+                if (graphics[i] == graphic) {
+                    Graphic[] updated = new Graphic[graphics.length - 1];
+                    System.arraycopy(graphics, 0, updated, 0, i);
+                    System.arraycopy(graphics, i + 1, updated, i, updated.length - i);
+                    graphics = updated;
+                    break;
+                }
+            }
         }
         postInvalidate();
     }
 
-    public void setImageSourceInfo(int imageWidth, int imageHeight) {
-        synchronized (lock) {
-            this.imageWidth = imageWidth;
-            this.imageHeight = imageHeight;
-        }
+    public void setProfiler(PipelineProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // imageWidth and imageHeight are the upright image size, and sourceRotation the Surface
+    // rotation the image is upright for, i.e. the analysis target rotation
+    public void setImageSourceInfo(int imageWidth, int imageHeight, int sourceRotation) {
+        imageSource = ((long) imageWidth << 32) | ((long) imageHeight << 2) | (sourceRotation & 3);
         postInvalidate();
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        appliedImageSource = -1;
+    }
+
+    private static int toDegrees(int surfaceRotation) {
+        switch (surfaceRotation) {
+            case Surface.ROTATION_90:
+                return 90;
+            case Surface.ROTATION_180:
+                return 180;
+            case Surface.ROTATION_270:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
+    // Matches the preview's default FILL_CENTER: rotate the normalised image about its centre
+    // by however far the display has turned since the source was set, scale it to cover the
+    // view and centre it, cropping the overflow
+    private void updateTransformationMatrix() {
+        long source = imageSource;
+        Display display = getDisplay();
+        int displayRotation = display != null ? display.getRotation() : Surface.ROTATION_0;
+        if (source == appliedImageSource && displayRotation == appliedDisplayRotation) {
+            return;
+        }
+        appliedImageSource = source;
+        appliedDisplayRotation = displayRotation;
+
+        int imageWidth = (int) (source >>> 32);
+        int imageHeight = (int) (source >>> 2) & 0x3FFFFFFF;
+        if (imageWidth <= 0 || imageHeight <= 0) {
+            return;
+        }
+        int degrees = (toDegrees((int) source & 3) - toDegrees(displayRotation) + 360) % 360;
+        boolean sideways = degrees == 90 || degrees == 270;
+        int rotatedWidth = sideways ? imageHeight : imageWidth;
+        int rotatedHeight = sideways ? imageWidth : imageHeight;
+        scaleFactor = Math.max(
+                (float) getWidth() / rotatedWidth,
+                (float) getHeight() / rotatedHeight
+        );
+        offsetX = (getWidth() - imageWidth * scaleFactor) / 2;
+        offsetY = (getHeight() - imageHeight * scaleFactor) / 2;
+
+        transformationMatrix.setScale(imageWidth, imageHeight);
+        transformationMatrix.postTranslate(-imageWidth / 2f, -imageHeight / 2f);
+        transformationMatrix.postRotate(degrees);
+        transformationMatrix.postScale(scaleFactor, scaleFactor);
+        transformationMatrix.postTranslate(getWidth() / 2f, getHeight() / 2f);
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        long drawStart = System.nanoTime();
 
-        synchronized (lock) {
-            if (imageWidth > 0 && imageHeight > 0) {
-                scaleFactor = Math.min(
-                        (float) getWidth() / imageWidth,
-                        (float) getHeight() / imageHeight
-                );
-            }
+        updateTransformationMatrix();
+        for (Graphic graphic : graphics) {
+            graphic.draw(canvas);
+        }
 
-            for (Graphic graphic : graphics) {
-                graphic.draw(canvas);
-            }
+        if (profiler != null) {
+            profiler.record(PipelineProfiler.Stage.OVERLAY_DRAW, System.nanoTime() - drawStart);
         }
     }
-}
\ No newline at end of file
+}
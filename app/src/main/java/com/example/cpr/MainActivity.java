@@ -3,58 +3,284 @@ package com.example.cpr;
 
 import android.Manifest;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.TotalCaptureResult;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.PowerManager;
 import android.provider.Settings;
 import android.util.Log;
+import android.util.Size;
+import android.view.Surface;
+import android.view.View;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.camera2.interop.Camera2Interop;
+import androidx.camera.camera2.interop.ExperimentalCamera2Interop;
 import androidx.camera.core.*;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.example.cpr.core.AnalyserChain;
+import com.example.cpr.core.AnalyserThresholds;
+import com.example.cpr.core.CPRAnalyser;
+import com.example.cpr.core.CompressionCheck;
+import com.example.cpr.core.CrossingRateEstimator;
+import com.example.cpr.core.DetectionScheduler;
+import com.example.cpr.core.ElbowLockCheck;
+import com.example.cpr.core.FlightRecorder;
+import com.example.cpr.core.LandmarkFrame;
+import com.example.cpr.core.MetricsBus;
+import com.example.cpr.core.MetricsEvent;
+import com.example.cpr.core.MotionGate;
+import com.example.cpr.core.PipelineProfiler;
+import com.example.cpr.core.QualityGovernor;
+import com.example.cpr.core.RegionOfInterest;
+import com.example.cpr.core.ResolutionTuner;
+import com.example.cpr.core.SessionRecorder;
+import com.example.cpr.core.SessionStatistics;
+import com.example.cpr.core.ShoulderAlignmentCheck;
+import com.example.cpr.core.SlidingDftRateEstimator;
+import com.example.cpr.core.TechniqueReport;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.pose.PoseDetection;
-import com.google.mlkit.vision.pose.PoseDetector;
-import com.google.mlkit.vision.pose.defaults.PoseDetectorOptions;
 
 import android.widget.TextView;
-
+import android.widget.Toast;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Locale;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-@ExperimentalGetImage public class MainActivity extends AppCompatActivity {
+@ExperimentalGetImage public class MainActivity extends AppCompatActivity
+        implements PoseAnalysisPipeline.Listener {
     private PreviewView previewView;
     private TextView metricsTextView;
-    private PoseDetector poseDetector;
+    private MetricsPresenter metricsPresenter;
+    private TextView perfHudTextView;
+    private DetectorGovernor detectorGovernor;
     private static final int PERMISSION_REQUEST_CODE = 1001;
+    // Frames that may be in pose detection at once; 1 holds each ImageProxy without copying
+    private static final int DETECTION_IN_FLIGHT_DEPTH = 2;
+    // Estimate rate from the wrist signal spectrum instead of counted compressions
+    private static final boolean SLIDING_DFT_RATE_ESTIMATOR = false;
+    // Run the detector on every Nth frame and predict the rest, unless the wrists become too uncertain
+    private static final int DETECT_EVERY_NTH_FRAME = 2;
+    private static final float MAX_PREDICTED_WRIST_STD_DEV = 0.05f;
+    // Crop detection to a padded box around the torso once the landmarks are confidently found
+    private static final boolean ROI_CROPPING = true;
+    private static final float ROI_PADDING = 0.35f;
+    private static final float ROI_MIN_SIZE = 0.35f;
+    private static final float ROI_MIN_LIKELIHOOD = 0.8f;
+    // Detect only occasionally while nothing moves in front of the camera
+    private static final boolean MOTION_GATING = true;
+    private static final int MOTION_GRID_WIDTH = 16;
+    private static final int MOTION_GRID_HEIGHT = 12;
+    private static final float MOTION_THRESHOLD = 3f;
+    private static final int IDLE_DETECT_EVERY_NTH_FRAME = 15;
+    private static final long IDLE_AFTER_NANOS = 3_000_000_000L;
+    // Switch to the fast detector above the degrade latency and back below the recover latency
+    private static final long DETECTOR_DEGRADE_LATENCY_NANOS = 80_000_000L;
+    private static final long DETECTOR_RECOVER_LATENCY_NANOS = 25_000_000L;
+    private static final long DETECTOR_MIN_DWELL_NANOS = 5_000_000_000L;
+    private static final int DETECTOR_LATENCY_WINDOW = 15;
+    private static final long PERF_HUD_REFRESH_MS = 500;
+    // Posture checks: straight arms, and shoulders stacked over the hands
+    private static final float MIN_ELBOW_ANGLE_DEGREES = 160f;
+    private static final float MAX_SHOULDER_LEAN_DEGREES = 20f;
+    // Audible compression metronome, cueing higher or lower while the rate is out of band
+    private static final boolean METRONOME = true;
+    private static final float METRONOME_BPM = 110f;
+    private static final boolean METRONOME_ADAPTIVE_CUE = true;
+    // Longest the analysis thread waits on a full blocking subscriber before dropping the event
+    private static final long METRICS_BUS_BLOCK_TIMEOUT_NANOS = 2_000_000L;
+    private static final int SESSION_EVENT_CAPACITY = 64;
+    // Analysis resolutions to calibrate, landscape and smallest first. Calibration only runs when
+    // asked for with a long press on the metrics, while the hands are held still in view. The
+    // smallest whose wrist jitter fits the budget is remembered per device model, and sessions
+    // use the default until then
+    private static final int[][] ANALYSIS_RESOLUTIONS = {
+            {320, 240}, {480, 360}, {640, 480}, {960, 720}, {1280, 960}};
+    private static final int[] DEFAULT_ANALYSIS_RESOLUTION = ANALYSIS_RESOLUTIONS[2];
+    private static final float RESOLUTION_JITTER_BUDGET = 0.004f;
+    private static final float RESOLUTION_MAX_STILL_MOTION = 0.03f;
+    private static final int RESOLUTION_SAMPLES = 45;
+    private static final int RESOLUTION_WARMUP_FRAMES = 10;
+    private static final int RESOLUTION_MAX_FRAMES = 300;
+    private static final String TUNING_PREFERENCES = "cpr_tuning";
+    private static final String ANALYSIS_RESOLUTION_KEY = "analysis_resolution_";
+    // About four minutes of analysed frames at 30 fps
+    private static final int FLIGHT_RECORDER_CAPACITY = 8192;
+    private static final long MIN_FLIGHT_DUMP_INTERVAL_NANOS = 60_000_000_000L;
+    // Session recordings kept in files/sessions, counting the one about to start; a recording
+    // takes about 3 KB a second
+    private static final int MAX_SESSION_FILES = 20;
+    private static final long MAX_SESSION_BYTES = 64L * 1024 * 1024;
     private CPRAnalyser cprAnalyzer;
+    private AnalyserChain analyserChain;
+    private ExecutorService analysisExecutor;
+    private ExecutorService eventExecutor;
+    private PoseAnalysisPipeline analysisPipeline;
+    private PowerManager.OnThermalStatusChangedListener thermalStatusListener;
+    private final PipelineProfiler profiler = new PipelineProfiler();
+    private final StartupTrace startupTrace = new StartupTrace();
+    private final FlightRecorder flightRecorder = new FlightRecorder(FLIGHT_RECORDER_CAPACITY);
+    // Published to on the analysis thread only
+    private final MetricsBus metricsBus = new MetricsBus(METRICS_BUS_BLOCK_TIMEOUT_NANOS);
+    // Fed per compression on the event thread, snapshotted on the main thread
+    private final SessionStatistics sessionStatistics = new SessionStatistics(
+            AnalyserThresholds.DEFAULT.getMinCompressionDistance(),
+            AnalyserThresholds.DEFAULT.getMaxCompressionDistance(),
+            CPRAnalyser.MIN_TARGET_RATE, CPRAnalyser.MAX_TARGET_RATE);
+    private final SessionStatistics.Summary sessionSummary = new SessionStatistics.Summary();
+    // Only touched on the analysis thread
+    private long lastFlightDumpNanos;
+    private long lastFrameNanos;
+    private SessionRecorder sessionRecorder;
+    // Null unless calibrating
+    private ResolutionTuner resolutionTuner;
+    // Main thread only
+    private int[] analysisResolution;
+    private int[] resolutionBeforeCalibration;
+    private ProcessCameraProvider cameraProvider;
+    private CameraSelector cameraSelector;
+    private ImageAnalysis imageAnalysis;
+    // Surface rotation analysis frames are upright for, set on the main thread and read on the
+    // analysis thread
+    private volatile int analysisTargetRotation = Surface.ROTATION_0;
+    private final StringBuilder perfHudText = new StringBuilder();
+    private final Runnable perfHudRefresh = this::refreshPerfHud;
 
     private GraphicOverlay graphicOverlay;
+    private PoseGraphic poseGraphic;
+    private Metronome metronome;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        startupTrace.mark(StartupTrace.Milestone.ACTIVITY_CREATED);
         setContentView(R.layout.activity_main);
 
         previewView = findViewById(R.id.preview_view);
         metricsTextView = findViewById(R.id.metrics_text_view);
         graphicOverlay = findViewById(R.id.graphic_overlay);
+        perfHudTextView = findViewById(R.id.perf_hud_text_view);
+        metricsPresenter = new MetricsPresenter(metricsTextView, profiler);
+        metricsPresenter.setFirstShownCallback(() -> {
+            startupTrace.mark(StartupTrace.Milestone.FIRST_METRIC);
+            reportFullyDrawn();
+        });
+        previewView.getPreviewStreamState().observe(this, state -> {
+            if (state == PreviewView.StreamState.STREAMING) {
+                startupTrace.mark(StartupTrace.Milestone.FIRST_PREVIEW_FRAME);
+            }
+        });
+        graphicOverlay.setProfiler(profiler);
+        poseGraphic = new PoseGraphic(graphicOverlay);
+        graphicOverlay.add(poseGraphic);
+
+        // Frame analysis never runs on the main looper
+        analysisExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "cpr-analysis"));
+        // Subscribers that do real work per event get their own thread
+        eventExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "cpr-events"));
+
+        // Initialize pose detectors, the governor picks fast or accurate per frame. Loading the
+        // models happens on the analysis thread while the camera is bound on this one, and is
+        // queued ahead of any frame.
+        detectorGovernor = new DetectorGovernor(new QualityGovernor(
+                DETECTOR_DEGRADE_LATENCY_NANOS, DETECTOR_RECOVER_LATENCY_NANOS,
+                DETECTOR_MIN_DWELL_NANOS, DETECTOR_LATENCY_WINDOW));
+        analysisExecutor.execute(() -> detectorGovernor.warmUp().addOnCompleteListener(
+                task -> startupTrace.mark(StartupTrace.Milestone.DETECTOR_READY)));
+
+        // The presenter and metronome only store the latest values, so deliver to them directly
+        metricsBus.subscribe(MetricsEvent.FRAME, metricsPresenter, Runnable::run,
+                MetricsBus.Overflow.LATEST, 1);
+        if (METRONOME) {
+            metronome = new Metronome(METRONOME_BPM, METRONOME_ADAPTIVE_CUE);
+            metricsBus.subscribe(MetricsEvent.FRAME, event -> metronome.onRate(event.getMetrics().getRate()),
+                    Runnable::run, MetricsBus.Overflow.LATEST, 1);
+        }
+        // Statistics must see every compression, so wait briefly for room rather than drop. The
+        // cost lands on the analysis thread: while cpr-events is SESSION_EVENT_CAPACITY behind,
+        // each cycle or pause can hold the next frame up by METRICS_BUS_BLOCK_TIMEOUT_NANOS (2 ms).
+        // At roughly two compressions a second that stays well inside a 33 ms frame budget.
+        metricsBus.subscribe(MetricsEvent.CYCLE | MetricsEvent.PAUSE, event -> {
+            if (event.getType() == MetricsEvent.CYCLE) {
+                sessionStatistics.onCycle(event.getCycle());
+            } else {
+                sessionStatistics.onPause(event.getPauseStartNanos(), event.getPauseEndNanos());
+            }
+        }, eventExecutor, MetricsBus.Overflow.BLOCK, SESSION_EVENT_CAPACITY);
+
+        cprAnalyzer = new CPRAnalyser(SLIDING_DFT_RATE_ESTIMATOR
+                ? new SlidingDftRateEstimator() : new CrossingRateEstimator());
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        // Always on: recording is a few stores per frame, dumps happen off the analysis thread
+        flightRecorder.setAnomalyListener((type, timestampNanos) -> {
+            long now = System.nanoTime();
+            if (lastFlightDumpNanos == 0 || now - lastFlightDumpNanos > MIN_FLIGHT_DUMP_INTERVAL_NANOS) {
+                lastFlightDumpNanos = now;
+                dumpFlightRecorder("anomaly");
+            }
+        });
+        cprAnalyzer.setFlightRecorder(flightRecorder);
+        cprAnalyzer.setCycleListener(metricsBus);
+        // Landmarks are adapted once per frame and shared by every check
+        analyserChain = new AnalyserChain(new CompressionCheck(cprAnalyzer),
+                new ElbowLockCheck(MIN_ELBOW_ANGLE_DEGREES),
+                new ShoulderAlignmentCheck(MAX_SHOULDER_LEAN_DEGREES));
+
+        analysisResolution = loadAnalysisResolution();
+        if (analysisResolution == null) {
+            analysisResolution = DEFAULT_ANALYSIS_RESOLUTION;
+        }
+        metricsTextView.setOnLongClickListener(v -> {
+            startCalibration();
+            return true;
+        });
 
+        analysisExecutor.execute(this::startSessionRecording);
+        analysisPipeline = new PoseAnalysisPipeline(detectorGovernor, analyserChain, analysisExecutor,
+                DETECTION_IN_FLIGHT_DEPTH,
+                new DetectionScheduler(DETECT_EVERY_NTH_FRAME, MAX_PREDICTED_WRIST_STD_DEV),
+                ROI_CROPPING ? new RegionOfInterest(ROI_PADDING, ROI_MIN_SIZE, ROI_MIN_LIKELIHOOD) : null,
+                MOTION_GATING ? new MotionGate(MOTION_GRID_WIDTH, MOTION_GRID_HEIGHT, MOTION_THRESHOLD,
+                        IDLE_DETECT_EVERY_NTH_FRAME, IDLE_AFTER_NANOS) : null,
+                profiler, this);
+
+        if (debuggable) {
+            perfHudTextView.setVisibility(View.VISIBLE);
+            perfHudTextView.setOnLongClickListener(v -> {
+                dumpLatencyHistograms();
+                dumpFlightRecorder("manual");
+                return true;
+            });
+            perfHudTextView.post(perfHudRefresh);
+        }
 
-        // Initialize pose detector
-        PoseDetectorOptions options = new PoseDetectorOptions.Builder()
-                .setDetectorMode(PoseDetectorOptions.STREAM_MODE)
-//                .setPerformanceMode(PoseDetectorOptions.PERFORMANCE_MODE_FAST)
-                .build();
-        poseDetector = PoseDetection.getClient(options);
-
-        cprAnalyzer = new CPRAnalyser();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // The governor is confined to the analysis thread, so deliver thermal changes there
+            thermalStatusListener = detectorGovernor::onThermalStatus;
+            PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+            powerManager.addThermalStatusListener(analysisExecutor, thermalStatusListener);
+        }
 
         // Check and request camera permissions
         if (!checkPermissions()) {
@@ -136,55 +362,287 @@ import java.util.concurrent.ExecutionException;
 
         preview.setSurfaceProvider(previewView.getSurfaceProvider());
 
-        ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
-                .setTargetRotation(previewView.getDisplay().getRotation())
-                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
-                .build();
+        this.cameraProvider = cameraProvider;
+        this.cameraSelector = cameraSelector;
+        imageAnalysis = buildImageAnalysis(analysisResolution);
+        cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+    }
+
+    @OptIn(markerClass = ExperimentalCamera2Interop.class)
+    private ImageAnalysis buildImageAnalysis(int[] resolution) {
+        // Target sizes are in the coordinate frame of the target rotation
+        int rotation = previewView.getDisplay().getRotation();
+        analysisTargetRotation = rotation;
+        boolean portrait = rotation == Surface.ROTATION_0 || rotation == Surface.ROTATION_180;
+        ImageAnalysis.Builder analysisBuilder = new ImageAnalysis.Builder()
+                .setTargetRotation(rotation)
+                .setTargetResolution(portrait ? new Size(resolution[1], resolution[0])
+                        : new Size(resolution[0], resolution[1]))
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST);
+
+        // Count every frame the camera produces so frames dropped by the backpressure strategy show up
+        FrameStats frameStats = analysisPipeline.getFrameStats();
+        new Camera2Interop.Extender<>(analysisBuilder)
+                .setSessionCaptureCallback(new CameraCaptureSession.CaptureCallback() {
+                    @Override
+                    public void onCaptureCompleted(@NonNull CameraCaptureSession session,
+                                                   @NonNull CaptureRequest request,
+                                                   @NonNull TotalCaptureResult result) {
+                        frameStats.onFrameCaptured();
+                    }
+                });
+
+        ImageAnalysis imageAnalysis = analysisBuilder.build();
+        imageAnalysis.setAnalyzer(analysisExecutor, analysisPipeline);
+        return imageAnalysis;
+    }
+
+    private void rebindAnalysis(int[] resolution) {
+        if (cameraProvider == null || isDestroyed()) {
+            return;
+        }
+        analysisResolution = resolution;
+        cameraProvider.unbind(imageAnalysis);
+        imageAnalysis = buildImageAnalysis(resolution);
+        cameraProvider.bindToLifecycle(this, cameraSelector, imageAnalysis);
+    }
 
-        imageAnalysis.setAnalyzer(ContextCompat.getMainExecutor(this), image -> {
-            int rotationDegrees = image.getImageInfo().getRotationDegrees();
+    private int[] loadAnalysisResolution() {
+        String saved = getSharedPreferences(TUNING_PREFERENCES, MODE_PRIVATE)
+                .getString(ANALYSIS_RESOLUTION_KEY + Build.MODEL, null);
+        if (saved == null) {
+            return null;
+        }
+        for (int[] candidate : ANALYSIS_RESOLUTIONS) {
+            if (saved.equals(candidate[0] + "x" + candidate[1])) {
+                return candidate;
+            }
+        }
+        // Saved by a build with different candidates, calibrate again
+        return null;
+    }
 
-            // Update overlay dimensions
-            if (graphicOverlay != null) {
-                graphicOverlay.setImageSourceInfo(
-                        image.getWidth(), image.getHeight());
+    private void startCalibration() {
+        if (resolutionBeforeCalibration != null || cameraProvider == null) {
+            return;
+        }
+        resolutionBeforeCalibration = analysisResolution;
+        ResolutionTuner tuner = new ResolutionTuner(ANALYSIS_RESOLUTIONS, RESOLUTION_JITTER_BUDGET,
+                RESOLUTION_SAMPLES, RESOLUTION_WARMUP_FRAMES, RESOLUTION_MAX_FRAMES,
+                RESOLUTION_MAX_STILL_MOTION);
+        analysisExecutor.execute(() -> resolutionTuner = tuner);
+        rebindAnalysis(tuner.getCurrentCandidate());
+        Toast.makeText(this, "Calibrating, hold your hands still in view", Toast.LENGTH_LONG).show();
+    }
+
+    // Runs on the analysis thread after every analysed frame while calibrating
+    private void onCalibrationFrame(LandmarkFrame landmarks, boolean detected, long detectionLatencyNanos) {
+        if (!resolutionTuner.onFrame(landmarks, detected, detectionLatencyNanos)) {
+            return;
+        }
+        if (!resolutionTuner.isDone()) {
+            int[] next = resolutionTuner.getCurrentCandidate();
+            runOnUiThread(() -> rebindAnalysis(next));
+            return;
+        }
+
+        int[] chosen = resolutionTuner.getChosen();
+        StringBuilder summary = new StringBuilder("Analysis resolution ");
+        if (chosen == null) {
+            summary.append("not chosen, nothing could be measured:");
+        } else {
+            summary.append(chosen[0]).append('x').append(chosen[1]).append(" chosen:");
+        }
+        for (int i = 0; i < ANALYSIS_RESOLUTIONS.length; i++) {
+            float jitter = resolutionTuner.getJitter(i);
+            if (!Float.isNaN(jitter)) {
+                summary.append(String.format(Locale.US, " %dx%d jitter %.4f latency %.1f ms;",
+                        ANALYSIS_RESOLUTIONS[i][0], ANALYSIS_RESOLUTIONS[i][1], jitter,
+                        resolutionTuner.getMeanLatencyNanos(i) / 1e6));
             }
+        }
+        Log.i("CPRActivity", summary.toString());
+        resolutionTuner = null;
+        runOnUiThread(() -> finishCalibration(chosen));
+    }
 
-            InputImage inputImage = InputImage.fromMediaImage(
-                    image.getImage(), rotationDegrees);
-
-            poseDetector.process(inputImage)
-                    .addOnSuccessListener(pose -> {
-                        // Process metrics
-                        CPRMetrics metrics = cprAnalyzer.analyzePose(pose);
-                        updateMetricsDisplay(metrics);
-
-                        // Update graphics
-                        graphicOverlay.clear();
-                        graphicOverlay.add(new PoseGraphic(graphicOverlay, pose));
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e("CPRActivity", "Pose detection failed", e);
-                    })
-                    .addOnCompleteListener(result -> {
-                        image.close();
-                    });
-        });
+    // Keeps the previous resolution, and saves nothing, when calibration measured nothing
+    private void finishCalibration(int[] chosen) {
+        int[] resolution = chosen != null ? chosen : resolutionBeforeCalibration;
+        resolutionBeforeCalibration = null;
+        if (chosen != null) {
+            getSharedPreferences(TUNING_PREFERENCES, MODE_PRIVATE).edit()
+                    .putString(ANALYSIS_RESOLUTION_KEY + Build.MODEL, chosen[0] + "x" + chosen[1])
+                    .apply();
+        }
+        // The last candidate measured is still bound
+        if (resolution != analysisResolution) {
+            rebindAnalysis(resolution);
+        }
+        Toast.makeText(this, chosen != null
+                ? "Analysis resolution " + chosen[0] + "x" + chosen[1]
+                : "Calibration failed, hold your hands still in view and try again",
+                Toast.LENGTH_LONG).show();
+    }
 
-        cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+    @Override
+    public void onImageSize(int width, int height) {
+        // Update overlay dimensions
+        if (graphicOverlay != null) {
+            graphicOverlay.setImageSourceInfo(width, height, analysisTargetRotation);
+        }
+    }
+
+    @Override
+    public void onFrameAnalysed(LandmarkFrame landmarks, boolean detected, long detectionLatencyNanos,
+                                TechniqueReport report, long captureNanos) {
+        lastFrameNanos = landmarks.getTimestampNanos();
+        metricsBus.publishFrame(lastFrameNanos, report, captureNanos);
+        if (detected) {
+            startupTrace.mark(StartupTrace.Milestone.FIRST_DETECTION);
+        }
+
+        if (resolutionTuner != null) {
+            onCalibrationFrame(landmarks, detected, detectionLatencyNanos);
+        }
+
+        if (sessionRecorder != null) {
+            try {
+                sessionRecorder.append(landmarks, report.getMetrics(), detected);
+            } catch (IOException e) {
+                Log.e("CPRActivity", "Session recording failed", e);
+                stopSessionRecording();
+            }
+        }
+
+        // Update graphics
+        poseGraphic.publish(landmarks);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (metronome != null) {
+            metronome.start();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (metronome != null) {
+            metronome.stop();
+        }
     }
 
-    private void updateMetricsDisplay(CPRMetrics metrics) {
-        runOnUiThread(() -> {
-            String displayText = String.format(
-                    "Compression Depth: %.2f\n" +
-                            "Rate: %.1f compressions/min\n" +
-                            "Status: %s",
-                    metrics.getDepth(),
-                    metrics.getRate(),
-                    metrics.isGoodTechnique() ? "Good" : "Adjust Technique"
-            );
-            metricsTextView.setText(displayText);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        perfHudTextView.removeCallbacks(perfHudRefresh);
+        if (thermalStatusListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ((PowerManager) getSystemService(POWER_SERVICE))
+                    .removeThermalStatusListener(thermalStatusListener);
+        }
+        analysisExecutor.execute(this::stopSessionRecording);
+        // The clients are created on the analysis thread, so close them there after the last frame
+        analysisExecutor.execute(detectorGovernor::close);
+        // Close any trailing pause, then log the summary once the event thread has taken it in
+        analysisExecutor.execute(() -> {
+            cprAnalyzer.endSession(lastFrameNanos);
+            eventExecutor.execute(() -> {
+                StringBuilder summary = new StringBuilder();
+                appendSessionSummary(sessionStatistics.snapshot(new SessionStatistics.Summary()), summary);
+                Log.i("CPRActivity", summary.toString());
+            });
+            eventExecutor.shutdown();
         });
+        analysisExecutor.shutdown();
+        metricsPresenter.stop();
+    }
+
+    private void appendSessionSummary(SessionStatistics.Summary summary, StringBuilder out) {
+        out.append(String.format(Locale.US,
+                "session n=%d in band %.0f%% longest pause %.1fs\n"
+                        + "depth mean=%.3f sd=%.3f p10/50/90=%.3f/%.3f/%.3f\n"
+                        + "rate mean=%.1f sd=%.1f p10/50/90=%.1f/%.1f/%.1f\n",
+                summary.getCompressions(), summary.getInTargetPercent(),
+                summary.getLongestPauseNanos() / 1e9,
+                summary.getMeanDepth(), Math.sqrt(summary.getDepthVariance()),
+                summary.getDepthP10(), summary.getDepthP50(), summary.getDepthP90(),
+                summary.getMeanRate(), Math.sqrt(summary.getRateVariance()),
+                summary.getRateP10(), summary.getRateP50(), summary.getRateP90()));
+    }
+
+    private void refreshPerfHud() {
+        FrameStats frameStats = analysisPipeline.getFrameStats();
+        perfHudText.setLength(0);
+        perfHudText.append(String.format(Locale.US, "analysis %.1f fps, dropped %d, skipped %d, idle %d\n",
+                frameStats.getAnalysisFps(), frameStats.getDropped(), frameStats.getSkipped(),
+                frameStats.getIdle()));
+        profiler.appendSummary(perfHudText);
+        analyserChain.appendSummary(perfHudText);
+        appendSessionSummary(sessionStatistics.snapshot(sessionSummary), perfHudText);
+        perfHudTextView.setText(perfHudText);
+        perfHudTextView.postDelayed(perfHudRefresh, PERF_HUD_REFRESH_MS);
+    }
+
+    private void dumpLatencyHistograms() {
+        File file = new File(getExternalFilesDir(null), String.format(Locale.US,
+                "latency-%d.csv", System.currentTimeMillis()));
+        new Thread(() -> {
+            try (Writer writer = new FileWriter(file)) {
+                profiler.writeCsv(writer);
+                runOnUiThread(() -> Toast.makeText(this, "Latency histograms saved to " + file,
+                        Toast.LENGTH_LONG).show());
+            } catch (IOException e) {
+                Log.e("CPRActivity", "Failed to dump latency histograms", e);
+            }
+        }, "cpr-latency-dump").start();
+    }
+
+    // Runs on the analysis thread, which owns the recorder
+    private void startSessionRecording() {
+        File directory = new File(getFilesDir(), "sessions");
+        long startTimeMillis = System.currentTimeMillis();
+        File file = new File(directory, String.format(Locale.US, "session-%d%s", startTimeMillis,
+                SessionRecorder.FILE_EXTENSION));
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            int pruned = SessionRecorder.prune(directory, MAX_SESSION_FILES - 1, MAX_SESSION_BYTES);
+            if (pruned > 0) {
+                Log.i("CPRActivity", "Deleted " + pruned + " old session recordings");
+            }
+            sessionRecorder = new SessionRecorder(file, startTimeMillis);
+        } catch (IOException e) {
+            Log.e("CPRActivity", "Failed to start session recording", e);
+        }
+    }
+
+    private void stopSessionRecording() {
+        if (sessionRecorder == null) {
+            return;
+        }
+        try {
+            sessionRecorder.close();
+        } catch (IOException e) {
+            Log.e("CPRActivity", "Failed to close session recording", e);
+        }
+        sessionRecorder = null;
+    }
+
+    // Decode with com.example.cpr.core.FlightRecordDecoder
+    private void dumpFlightRecorder(String reason) {
+        File file = new File(getExternalFilesDir(null), String.format(Locale.US,
+                "flight-%s-%d.bin", reason, System.currentTimeMillis()));
+        new Thread(() -> {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                flightRecorder.writeTo(out);
+                Log.i("CPRActivity", "Flight recorder saved to " + file);
+            } catch (IOException e) {
+                Log.e("CPRActivity", "Failed to dump flight recorder", e);
+            }
+        }, "cpr-flight-dump").start();
     }
 }
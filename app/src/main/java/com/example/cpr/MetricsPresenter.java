@@ -0,0 +1,123 @@
+package com.example.cpr;
+
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import com.example.cpr.core.MetricsBus;
+import com.example.cpr.core.MetricsEvent;
+import com.example.cpr.core.MetricsFormatter;
+import com.example.cpr.core.PipelineProfiler;
+
+// Keeps only the latest metrics from the analysis thread and shows them at most once per
+// display frame. The text view is only touched when a rounded value has visibly changed.
+class MetricsPresenter implements Choreographer.FrameCallback, MetricsBus.Subscriber {
+    private final TextView textView;
+    private final PipelineProfiler profiler;
+    private final Choreographer choreographer;
+
+    // Guarded by lock, written by the analysis thread
+    private final Object lock = new Object();
+    private int latestDepth;
+    private int latestRate;
+    private boolean latestGoodTechnique;
+    private int latestFaults;
+    private long latestCaptureNanos;
+    private boolean frameScheduled;
+
+    // Only touched on the main thread. TextView keeps a reference to the array it was given,
+    // so alternate between two rather than rewriting the one on screen.
+    private final char[][] text = {
+            new char[MetricsFormatter.MAX_LENGTH], new char[MetricsFormatter.MAX_LENGTH]};
+    private int textIndex;
+    private boolean shown;
+    private int shownDepth;
+    private int shownRate;
+    private boolean shownGoodTechnique;
+    private int shownFaults;
+    private Runnable firstShownCallback;
+
+    // Must be created on the main thread
+    MetricsPresenter(TextView textView, PipelineProfiler profiler) {
+        this.textView = textView;
+        this.profiler = profiler;
+        this.choreographer = Choreographer.getInstance();
+    }
+
+    // Runs once on the main thread, right after the first metrics are on screen
+    void setFirstShownCallback(Runnable callback) {
+        firstShownCallback = callback;
+    }
+
+    // Frame events; safe to call from any thread and the event is not retained
+    @Override
+    public void onEvent(MetricsEvent event) {
+        int depth = MetricsFormatter.depthHundredths(event.getMetrics().getDepth());
+        int rate = MetricsFormatter.rateTenths(event.getMetrics().getRate());
+        boolean goodTechnique = event.getMetrics().isGoodTechnique();
+        int faults = event.getFaults();
+        long captureNanos = event.getCaptureNanos();
+
+        synchronized (lock) {
+            latestDepth = depth;
+            latestRate = rate;
+            latestGoodTechnique = goodTechnique;
+            latestFaults = faults;
+            latestCaptureNanos = captureNanos;
+            if (frameScheduled) {
+                return;
+            }
+            frameScheduled = true;
+        }
+        choreographer.postFrameCallback(this);
+    }
+
+    void stop() {
+        choreographer.removeFrameCallback(this);
+        synchronized (lock) {
+            frameScheduled = false;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        long updateStart = System.nanoTime();
+        int depth;
+        int rate;
+        boolean goodTechnique;
+        int faults;
+        long captureNanos;
+        synchronized (lock) {
+            depth = latestDepth;
+            rate = latestRate;
+            goodTechnique = latestGoodTechnique;
+            faults = latestFaults;
+            captureNanos = latestCaptureNanos;
+            frameScheduled = false;
+        }
+
+        if (shown && depth == shownDepth && rate == shownRate
+                && goodTechnique == shownGoodTechnique && faults == shownFaults) {
+            return;
+        }
+        shown = true;
+        shownDepth = depth;
+        shownRate = rate;
+        shownGoodTechnique = goodTechnique;
+        shownFaults = faults;
+
+        textIndex ^= 1;
+        char[] buffer = text[textIndex];
+        int length = MetricsFormatter.format(depth, rate, goodTechnique, faults, buffer);
+        textView.setText(buffer, 0, length);
+
+        long now = System.nanoTime();
+        profiler.record(PipelineProfiler.Stage.UI_UPDATE, now - updateStart);
+        profiler.record(PipelineProfiler.Stage.END_TO_END, now - captureNanos);
+
+        if (firstShownCallback != null) {
+            Runnable callback = firstShownCallback;
+            firstShownCallback = null;
+            callback.run();
+        }
+    }
+}
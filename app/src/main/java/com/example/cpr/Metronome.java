@@ -0,0 +1,133 @@
+package com.example.cpr;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.cpr.core.CPRAnalyser;
+import com.example.cpr.core.ClickSynth;
+import com.example.cpr.core.MetronomeScheduler;
+
+// Audible compression metronome. A dedicated audio thread renders precomputed clicks into a
+// streaming AudioTrack with blocking writes, and MetronomeScheduler places each click by frame
+// count, so the beat follows the audio clock and is unaffected by a busy analysis thread.
+// Optionally swaps the click for a higher or lower pitched cue while the measured rate is
+// outside the target band.
+class Metronome {
+    private static final String TAG = "CPRMetronome";
+    private static final int CLICK_MILLIS = 25;
+    private static final float CLICK_AMPLITUDE = 0.6f;
+    private static final float ON_TARGET_HZ = 1000f;
+    private static final float SPEED_UP_HZ = 1600f;
+    private static final float SLOW_DOWN_HZ = 600f;
+
+    private final float bpm;
+    private final boolean adaptiveCue;
+
+    // Written by the analysis thread, read by the audio thread
+    private volatile MetronomeScheduler.Cue cue = MetronomeScheduler.Cue.ON_TARGET;
+    private volatile boolean running;
+    private Thread audioThread;
+
+    Metronome(float bpm, boolean adaptiveCue) {
+        this.bpm = bpm;
+        this.adaptiveCue = adaptiveCue;
+    }
+
+    // Main thread only
+    void start() {
+        if (audioThread != null) {
+            return;
+        }
+        running = true;
+        audioThread = new Thread(this::run, "cpr-metronome");
+        audioThread.start();
+    }
+
+    // Main thread only; returns once the track is released
+    void stop() {
+        if (audioThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            audioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        audioThread = null;
+    }
+
+    // Safe to call from any thread
+    void onRate(float rate) {
+        if (adaptiveCue) {
+            cue = MetronomeScheduler.Cue.forRate(rate,
+                    CPRAnalyser.MIN_TARGET_RATE, CPRAnalyser.MAX_TARGET_RATE);
+        }
+    }
+
+    private void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+        int sampleRate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+        int minBufferBytes = AudioTrack.getMinBufferSize(sampleRate,
+                AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        AudioTrack track = buildTrack(sampleRate, minBufferBytes);
+        if (track.getState() != AudioTrack.STATE_INITIALIZED) {
+            Log.e(TAG, "Audio track failed to initialise");
+            track.release();
+            return;
+        }
+
+        // Precomputed once; the loop below only copies samples
+        short[][] clicks = new short[MetronomeScheduler.Cue.values().length][];
+        clicks[MetronomeScheduler.Cue.ON_TARGET.ordinal()] =
+                ClickSynth.click(sampleRate, ON_TARGET_HZ, CLICK_MILLIS, CLICK_AMPLITUDE);
+        clicks[MetronomeScheduler.Cue.SPEED_UP.ordinal()] =
+                ClickSynth.click(sampleRate, SPEED_UP_HZ, CLICK_MILLIS, CLICK_AMPLITUDE);
+        clicks[MetronomeScheduler.Cue.SLOW_DOWN.ordinal()] =
+                ClickSynth.click(sampleRate, SLOW_DOWN_HZ, CLICK_MILLIS, CLICK_AMPLITUDE);
+        MetronomeScheduler scheduler = new MetronomeScheduler(sampleRate, bpm,
+                clicks[MetronomeScheduler.Cue.ON_TARGET.ordinal()]);
+
+        // Write half the minimum buffer at a time so the track never runs dry between writes
+        short[] block = new short[Math.max(64, minBufferBytes / 4)];
+        track.play();
+        while (running) {
+            scheduler.setClick(clicks[cue.ordinal()]);
+            scheduler.render(block, 0, block.length);
+            int written = track.write(block, 0, block.length);
+            if (written < 0) {
+                Log.e(TAG, "Audio write failed: " + written);
+                break;
+            }
+        }
+        Log.d(TAG, "Stopped after " + track.getUnderrunCount() + " underruns");
+        track.pause();
+        track.flush();
+        track.release();
+    }
+
+    private static AudioTrack buildTrack(int sampleRate, int bufferBytes) {
+        AudioTrack.Builder builder = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setSampleRate(sampleRate)
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                        .build())
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setBufferSizeInBytes(bufferBytes);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.cpr;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.ExperimentalGetImage;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+import com.example.cpr.core.AnalyserChain;
+import com.example.cpr.core.DetectionScheduler;
+import com.example.cpr.core.LandmarkFrame;
+import com.example.cpr.core.LandmarkTracker;
+import com.example.cpr.core.MotionGate;
+import com.example.cpr.core.PipelineProfiler;
+import com.example.cpr.core.RegionOfInterest;
+import com.example.cpr.core.TechniqueReport;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.pose.Pose;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+// Runs pose detection and CPR analysis on a single background executor. The analyser chain and
+// its reusable report are confined to that executor; listeners only ever see immutable copies.
+//
+// With an in-flight depth above one, each frame is copied to NV21 and the ImageProxy released
+// straight away so several detections can overlap. Results go through a reorder buffer so the
+// analyser still sees frames strictly in capture order.
+//
+// Frames the DetectionScheduler skips never reach the detector; the LandmarkTracker predicts
+// their landmarks when they reach the head of the reorder buffer.
+//
+// Each detection goes to whichever detector the DetectorGovernor currently prefers, and its
+// latency is fed back to the governor.
+//
+// With a RegionOfInterest, frames after a confident detection are cropped around the torso
+// before detection and the landmarks mapped back to full-frame coordinates.
+@ExperimentalGetImage
+class PoseAnalysisPipeline implements ImageAnalysis.Analyzer {
+    private static final String TAG = "CPRPipeline";
+
+    interface Listener {
+        // Called on the analysis executor with the size of the upright frame
+        void onImageSize(int width, int height);
+        // landmarks are in full-frame normalised coordinates; landmarks and report are reused
+        // for the next frame, so they are only valid during the call.
+        // detectionLatencyNanos is 0 for predicted frames. captureNanos is the System.nanoTime()
+        // the frame was captured at, best effort.
+        void onFrameAnalysed(LandmarkFrame landmarks, boolean detected, long detectionLatencyNanos,
+                             TechniqueReport report, long captureNanos);
+    }
+
+    private static final float[] FULL_FRAME = {0f, 0f, 1f, 1f};
+    // Camera timestamps older than this are assumed to use a different time base
+    private static final long MAX_FRAME_AGE_NANOS = 1_000_000_000L;
+
+    private static final class PendingFrame {
+        boolean detected;
+        long detectionLatencyNanos;
+        Pose pose;
+        // Capture time in the camera's monotonic timebase, drives all analysis timing
+        long timestampNanos;
+        // Capture time converted to System.nanoTime(), for latency measurement only
+        long captureNanos;
+        // Detector input size after rotation, and where it sits in the full upright frame
+        int uprightWidth;
+        int uprightHeight;
+        final float[] region = new float[4];
+    }
+
+    private final DetectorGovernor detectorGovernor;
+    private final AnalyserChain analyserChain;
+    private final Executor analysisExecutor;
+    private final Listener listener;
+    private final int inFlightDepth;
+    private final DetectionScheduler detectionScheduler;
+    private final RegionOfInterest regionOfInterest;
+    // Null when every frame should be considered for detection
+    private final MotionGate motionGate;
+    private final int[] cropRect = new int[4];
+    private final LandmarkTracker landmarkTracker = new LandmarkTracker();
+    private final FrameStats frameStats = new FrameStats();
+    private final PipelineProfiler profiler;
+    private final LandmarkFrame landmarkFrame = new LandmarkFrame();
+    private boolean timebaseChosen;
+    private boolean useArrivalTime;
+    private long lastFrameTimestamp = Long.MIN_VALUE;
+    private final TechniqueReport report = new TechniqueReport();
+    private final ReorderBuffer<PendingFrame> reorderBuffer;
+    private final PendingFrame[] pendingFrames;
+    private final ArrayDeque<ByteBuffer> frameBuffers;
+
+    // Only touched from the analysis executor
+    private long nextSequence = 0;
+    private int inFlight = 0;
+
+    PoseAnalysisPipeline(DetectorGovernor detectorGovernor, AnalyserChain analyserChain,
+                         Executor analysisExecutor, int inFlightDepth,
+                         DetectionScheduler detectionScheduler, RegionOfInterest regionOfInterest,
+                         MotionGate motionGate, PipelineProfiler profiler, Listener listener) {
+        if (inFlightDepth < 1) {
+            throw new IllegalArgumentException("In-flight depth must be at least 1");
+        }
+        this.detectorGovernor = detectorGovernor;
+        this.analyserChain = analyserChain;
+        this.analysisExecutor = analysisExecutor;
+        this.inFlightDepth = inFlightDepth;
+        this.detectionScheduler = detectionScheduler;
+        this.regionOfInterest = regionOfInterest;
+        this.motionGate = motionGate;
+        this.profiler = profiler;
+        this.listener = listener;
+
+        // Predicted frames can queue up behind every in-flight detection
+        int capacity = inFlightDepth * detectionScheduler.getDetectEveryNth();
+        this.reorderBuffer = new ReorderBuffer<>(capacity);
+        this.pendingFrames = new PendingFrame[capacity];
+        for (int i = 0; i < capacity; i++) {
+            pendingFrames[i] = new PendingFrame();
+        }
+        this.frameBuffers = new ArrayDeque<>(inFlightDepth);
+    }
+
+    FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy image) {
+        frameStats.onFrameReceived();
+        long arrivalNanos = System.nanoTime();
+        long sensorTimestamp = image.getImageInfo().getTimestamp();
+        long timestampNanos = frameTimestamp(sensorTimestamp, arrivalNanos);
+        long captureNanos = arrivalNanos;
+        long frameAge = SystemClock.elapsedRealtimeNanos() - sensorTimestamp;
+        if (frameAge >= 0 && frameAge < MAX_FRAME_AGE_NANOS) {
+            captureNanos -= frameAge;
+            profiler.record(PipelineProfiler.Stage.ACQUIRE, frameAge);
+        }
+
+        if (motionGate != null) {
+            ImageProxy.PlaneProxy luma = image.getPlanes()[0];
+            float motion = motionGate.measureMotion(luma.getBuffer(), image.getWidth(),
+                    image.getHeight(), luma.getRowStride());
+            if (!motionGate.onFrame(timestampNanos, motion)) {
+                // Nobody is compressing, don't spend a detection on the frame
+                frameStats.onFrameIdle();
+                image.close();
+                return;
+            }
+        }
+
+        boolean runDetector = detectionScheduler.shouldDetect(landmarkTracker, timestampNanos);
+        if (motionGate != null && motionGate.getState() != MotionGate.State.ACTIVE) {
+            // Idle check or acquiring a pose, there is nothing tracked worth predicting from
+            runDetector = true;
+        }
+        boolean canPredict = landmarkTracker.isTracked(LandmarkFrame.LEFT_WRIST)
+                && landmarkTracker.isTracked(LandmarkFrame.RIGHT_WRIST);
+        if (runDetector && inFlight >= inFlightDepth && canPredict) {
+            // Every detector slot is busy, but the tracker can cover this frame
+            runDetector = false;
+        }
+        if ((runDetector && inFlight >= inFlightDepth) || nextSequence - reorderBuffer.getNextSequence()
+                >= pendingFrames.length) {
+            // Nothing can take the frame, release it so the camera can move on
+            frameStats.onFrameSkipped();
+            image.close();
+            return;
+        }
+
+        int rotationDegrees = image.getImageInfo().getRotationDegrees();
+        boolean sideways = rotationDegrees == 90 || rotationDegrees == 270;
+        listener.onImageSize(sideways ? image.getHeight() : image.getWidth(),
+                sideways ? image.getWidth() : image.getHeight());
+
+        long sequence = nextSequence++;
+        PendingFrame pending = pendingFrames[(int) (sequence % pendingFrames.length)];
+        pending.detected = runDetector;
+        pending.detectionLatencyNanos = 0;
+        pending.pose = null;
+        pending.timestampNanos = timestampNanos;
+        pending.captureNanos = captureNanos;
+
+        if (!runDetector) {
+            image.close();
+            reorderBuffer.complete(sequence, pending);
+            drainInOrder();
+            return;
+        }
+
+        inFlight++;
+        boolean cropping = regionOfInterest != null && regionOfInterest.isActive();
+        if (inFlightDepth == 1 && !cropping) {
+            // Zero-copy path: hold the ImageProxy until detection finishes
+            System.arraycopy(FULL_FRAME, 0, pending.region, 0, 4);
+            pending.uprightWidth = sideways ? image.getHeight() : image.getWidth();
+            pending.uprightHeight = sideways ? image.getWidth() : image.getHeight();
+            InputImage inputImage = InputImage.fromMediaImage(image.getImage(), rotationDegrees);
+            profiler.record(PipelineProfiler.Stage.INPUT_IMAGE, System.nanoTime() - arrivalNanos);
+            detect(inputImage, sequence, pending, image, null);
+        } else {
+            if (cropping) {
+                regionOfInterest.toSensorRect(rotationDegrees, image.getWidth(), image.getHeight(),
+                        cropRect);
+            } else {
+                cropRect[0] = 0;
+                cropRect[1] = 0;
+                cropRect[2] = image.getWidth() & ~1;
+                cropRect[3] = image.getHeight() & ~1;
+            }
+            RegionOfInterest.sensorRectToUpright(rotationDegrees, image.getWidth(), image.getHeight(),
+                    cropRect, pending.region);
+            int width = cropRect[2];
+            int height = cropRect[3];
+            pending.uprightWidth = sideways ? height : width;
+            pending.uprightHeight = sideways ? width : height;
+
+            ByteBuffer frame = acquireFrameBuffer(YuvConverter.nv21Size(width, height));
+            YuvConverter.toNv21(image, cropRect[0], cropRect[1], width, height, frame.array());
+            InputImage inputImage = InputImage.fromByteBuffer(frame, width, height,
+                    rotationDegrees, InputImage.IMAGE_FORMAT_NV21);
+            image.close();
+            profiler.record(PipelineProfiler.Stage.INPUT_IMAGE, System.nanoTime() - arrivalNanos);
+            detect(inputImage, sequence, pending, null, frame);
+        }
+    }
+
+    // Every timing decision downstream uses the camera's capture time, so detector latency
+    // and queueing don't distort compression intervals. Devices that report no timestamp
+    // fall back to arrival time for the whole session, and time never runs backwards.
+    private long frameTimestamp(long sensorTimestamp, long arrivalNanos) {
+        if (!timebaseChosen) {
+            timebaseChosen = true;
+            useArrivalTime = sensorTimestamp <= 0;
+        }
+        long timestamp = useArrivalTime ? arrivalNanos : sensorTimestamp;
+        if (timestamp < lastFrameTimestamp) {
+            timestamp = lastFrameTimestamp;
+        }
+        lastFrameTimestamp = timestamp;
+        return timestamp;
+    }
+
+    private void detect(InputImage inputImage, long sequence, PendingFrame pending,
+                        ImageProxy image, ByteBuffer frame) {
+        long startNanos = System.nanoTime();
+        detectorGovernor.getDetector().process(inputImage)
+                .addOnSuccessListener(analysisExecutor, pose -> pending.pose = pose)
+                .addOnFailureListener(analysisExecutor, e -> {
+                    frameStats.onFrameFailed();
+                    Log.e(TAG, "Pose detection failed", e);
+                })
+                .addOnCompleteListener(analysisExecutor, result -> {
+                    if (image != null) {
+                        image.close();
+                    }
+                    if (frame != null) {
+                        frameBuffers.push(frame);
+                    }
+                    inFlight--;
+                    long now = System.nanoTime();
+                    pending.detectionLatencyNanos = now - startNanos;
+                    profiler.record(PipelineProfiler.Stage.DETECT, now - startNanos);
+                    detectorGovernor.onDetectionComplete(now - startNanos, now);
+                    reorderBuffer.complete(sequence, pending);
+                    drainInOrder();
+                    frameStats.reportIfDue(now);
+                });
+    }
+
+    private void drainInOrder() {
+        while (reorderBuffer.hasNext()) {
+            PendingFrame pending = reorderBuffer.next();
+            long analyseStart = System.nanoTime();
+            Pose pose = pending.pose;
+            pending.pose = null;
+
+            if (pending.detected) {
+                if (pose == null) {
+                    // Detection failed
+                    continue;
+                }
+                PoseFrameAdapter.toFrame(pose, pending.uprightWidth, pending.uprightHeight,
+                        pending.region, pending.timestampNanos, landmarkFrame);
+                landmarkTracker.correct(landmarkFrame);
+                if (regionOfInterest != null) {
+                    // Falls back to full-frame detection when the landmarks are lost
+                    regionOfInterest.update(landmarkFrame);
+                }
+            } else {
+                landmarkTracker.predict(pending.timestampNanos, landmarkFrame);
+                frameStats.onFramePredicted();
+            }
+
+            analyserChain.analyse(landmarkFrame, report);
+            if (motionGate != null && pending.detected) {
+                motionGate.onPoseResult(pending.timestampNanos, report.getMetrics().areHandsInPosition());
+            }
+            profiler.record(PipelineProfiler.Stage.ANALYSE, System.nanoTime() - analyseStart);
+            frameStats.onFrameProcessed();
+            listener.onFrameAnalysed(landmarkFrame, pending.detected, pending.detectionLatencyNanos,
+                    report, pending.captureNanos);
+        }
+    }
+
+    private ByteBuffer acquireFrameBuffer(int size) {
+        ByteBuffer frame = frameBuffers.poll();
+        // Crops change size from frame to frame, so reuse any buffer that is large enough
+        if (frame == null || frame.capacity() < size) {
+            frame = ByteBuffer.allocate(size);
+        }
+        frame.clear();
+        frame.limit(size);
+        return frame;
+    }
+}
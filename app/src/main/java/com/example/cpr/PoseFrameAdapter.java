@@ -0,0 +1,48 @@
+package com.example.cpr;
+
+import android.graphics.PointF;
+
+import com.example.cpr.core.LandmarkFrame;
+import com.google.mlkit.vision.pose.Pose;
+import com.google.mlkit.vision.pose.PoseLandmark;
+
+// Copies the landmarks cpr-core needs out of an ML Kit Pose, normalised to the upright image.
+// Poses detected on a crop are mapped back through the crop's region of the full frame.
+final class PoseFrameAdapter {
+    private static final int[] POSE_LANDMARKS = new int[LandmarkFrame.LANDMARK_COUNT];
+
+    static {
+        POSE_LANDMARKS[LandmarkFrame.LEFT_SHOULDER] = PoseLandmark.LEFT_SHOULDER;
+        POSE_LANDMARKS[LandmarkFrame.RIGHT_SHOULDER] = PoseLandmark.RIGHT_SHOULDER;
+        POSE_LANDMARKS[LandmarkFrame.LEFT_ELBOW] = PoseLandmark.LEFT_ELBOW;
+        POSE_LANDMARKS[LandmarkFrame.RIGHT_ELBOW] = PoseLandmark.RIGHT_ELBOW;
+        POSE_LANDMARKS[LandmarkFrame.LEFT_WRIST] = PoseLandmark.LEFT_WRIST;
+        POSE_LANDMARKS[LandmarkFrame.RIGHT_WRIST] = PoseLandmark.RIGHT_WRIST;
+    }
+
+    private PoseFrameAdapter() {
+    }
+
+    // uprightWidth and uprightHeight are the dimensions of the detector input after rotation,
+    // which is the coordinate space ML Kit reports landmarks in. region is {left, top, width,
+    // height} of that input within the full upright frame, normalised.
+    static void toFrame(Pose pose, int uprightWidth, int uprightHeight, float[] region,
+                        long timestampNanos, LandmarkFrame out) {
+        out.clear(timestampNanos);
+        // The full frame is the detector input scaled up by the region
+        out.setAspectRatio(uprightWidth * region[3] / (uprightHeight * region[2]));
+        if (pose == null) {
+            return;
+        }
+        for (int i = 0; i < LandmarkFrame.LANDMARK_COUNT; i++) {
+            PoseLandmark landmark = pose.getPoseLandmark(POSE_LANDMARKS[i]);
+            if (landmark != null) {
+                PointF position = landmark.getPosition();
+                out.set(i,
+                        region[0] + position.x / uprightWidth * region[2],
+                        region[1] + position.y / uprightHeight * region[3],
+                        landmark.getInFrameLikelihood());
+            }
+        }
+    }
+}
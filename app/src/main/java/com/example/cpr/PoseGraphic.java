@@ -2,29 +2,60 @@ package com.example.cpr;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
-import com.google.mlkit.vision.pose.Pose;
-import com.google.mlkit.vision.pose.PoseLandmark;
-import java.util.List;
 
+import com.example.cpr.core.LandmarkFrame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Added to the overlay once; the analysis thread publishes each frame's landmarks into it.
+// Drawing never waits on analysis and neither side allocates.
 class PoseGraphic extends GraphicOverlay.Graphic {
     private static final float DOT_RADIUS = 8.0f;
-    private static final float IN_FRAME_LIKELIHOOD_TEXT_SIZE = 30.0f;
     private static final float STROKE_WIDTH = 10.0f;
 
-    private final Pose pose;
+    // Index of the most recently published snapshot, with DIRTY set until the UI thread takes it
+    private static final int INDEX_MASK = 0x3;
+    private static final int DIRTY = 0x4;
+
+    // Landmark coordinates in normalised full-frame space, packed for drawPoints/drawLines
+    private static final class Snapshot {
+        final float[] points = new float[LandmarkFrame.LANDMARK_COUNT * 2];
+        final float[] leftLines = new float[8];
+        final float[] rightLines = new float[8];
+        final float[] centreLines = new float[4];
+        int pointCount;
+        int leftLineCount;
+        int rightLineCount;
+        int centreLineCount;
+    }
+
+    // Triple buffered: the writer fills the back snapshot, the reader draws the front one and
+    // the third is swapped between them atomically
+    private final Snapshot[] snapshots = {new Snapshot(), new Snapshot(), new Snapshot()};
+    private final AtomicInteger ready = new AtomicInteger(2);
+    private int back = 0;
+    private int front = 1;
+
+    // Snapshot mapped into view coordinates, only touched on the UI thread
+    private final Snapshot mapped = new Snapshot();
+    private final Paint pointPaint;
     private final Paint leftPaint;
     private final Paint rightPaint;
     private final Paint whitePaint;
 
-    PoseGraphic(GraphicOverlay overlay, Pose pose) {
+    PoseGraphic(GraphicOverlay overlay) {
         super(overlay);
-        this.pose = pose;
+
+        pointPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        pointPaint.setStrokeWidth(DOT_RADIUS * 2);
+        pointPaint.setStrokeCap(Paint.Cap.ROUND);
+        pointPaint.setColor(Color.WHITE);
 
         whitePaint = new Paint();
         whitePaint.setStrokeWidth(STROKE_WIDTH);
         whitePaint.setColor(Color.WHITE);
-        whitePaint.setTextSize(IN_FRAME_LIKELIHOOD_TEXT_SIZE);
 
         leftPaint = new Paint();
         leftPaint.setStrokeWidth(STROKE_WIDTH);
@@ -35,44 +66,70 @@ class PoseGraphic extends GraphicOverlay.Graphic {
         rightPaint.setColor(Color.YELLOW);
     }
 
-    @Override
-    public void draw(Canvas canvas) {
-        List<PoseLandmark> landmarks = pose.getAllPoseLandmarks();
-        if (landmarks.isEmpty()) {
-            return;
-        }
+    // Called from the analysis thread; landmarks are copied so the frame can be reused
+    void publish(LandmarkFrame landmarks) {
+        Snapshot snapshot = snapshots[back];
 
-        // Draw all the points
-        for (PoseLandmark landmark : landmarks) {
-            float x = translateX(landmark.getPosition().x);
-            float y = translateY(landmark.getPosition().y);
-            canvas.drawCircle(x, y, DOT_RADIUS, whitePaint);
+        int pointCount = 0;
+        for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+            if (landmarks.isPresent(landmark)) {
+                snapshot.points[pointCount * 2] = landmarks.getX(landmark);
+                snapshot.points[pointCount * 2 + 1] = landmarks.getY(landmark);
+                pointCount++;
+            }
         }
+        snapshot.pointCount = pointCount;
 
-        // Draw lines between landmarks
         // Left body
-        drawLine(canvas, landmarks, PoseLandmark.LEFT_SHOULDER, PoseLandmark.LEFT_ELBOW, leftPaint);
-        drawLine(canvas, landmarks, PoseLandmark.LEFT_ELBOW, PoseLandmark.LEFT_WRIST, leftPaint);
+        int leftLineCount = addLine(landmarks, LandmarkFrame.LEFT_SHOULDER,
+                LandmarkFrame.LEFT_ELBOW, snapshot.leftLines, 0);
+        snapshot.leftLineCount = addLine(landmarks, LandmarkFrame.LEFT_ELBOW,
+                LandmarkFrame.LEFT_WRIST, snapshot.leftLines, leftLineCount);
 
         // Right body
-        drawLine(canvas, landmarks, PoseLandmark.RIGHT_SHOULDER, PoseLandmark.RIGHT_ELBOW, rightPaint);
-        drawLine(canvas, landmarks, PoseLandmark.RIGHT_ELBOW, PoseLandmark.RIGHT_WRIST, rightPaint);
+        int rightLineCount = addLine(landmarks, LandmarkFrame.RIGHT_SHOULDER,
+                LandmarkFrame.RIGHT_ELBOW, snapshot.rightLines, 0);
+        snapshot.rightLineCount = addLine(landmarks, LandmarkFrame.RIGHT_ELBOW,
+                LandmarkFrame.RIGHT_WRIST, snapshot.rightLines, rightLineCount);
 
         // Body center
-        drawLine(canvas, landmarks, PoseLandmark.LEFT_SHOULDER, PoseLandmark.RIGHT_SHOULDER, whitePaint);
+        snapshot.centreLineCount = addLine(landmarks, LandmarkFrame.LEFT_SHOULDER,
+                LandmarkFrame.RIGHT_SHOULDER, snapshot.centreLines, 0);
+
+        back = ready.getAndSet(back | DIRTY) & INDEX_MASK;
+        postInvalidate();
     }
 
-    private void drawLine(Canvas canvas, List<PoseLandmark> landmarks, int start, int end, Paint paint) {
-        PoseLandmark startLandmark = pose.getPoseLandmark(start);
-        PoseLandmark endLandmark = pose.getPoseLandmark(end);
-        if (startLandmark != null && endLandmark != null) {
-            canvas.drawLine(
-                    translateX(startLandmark.getPosition().x),
-                    translateY(startLandmark.getPosition().y),
-                    translateX(endLandmark.getPosition().x),
-                    translateY(endLandmark.getPosition().y),
-                    paint
-            );
+    private static int addLine(LandmarkFrame landmarks, int start, int end, float[] lines, int count) {
+        if (!landmarks.isPresent(start) || !landmarks.isPresent(end)) {
+            return count;
+        }
+        lines[count] = landmarks.getX(start);
+        lines[count + 1] = landmarks.getY(start);
+        lines[count + 2] = landmarks.getX(end);
+        lines[count + 3] = landmarks.getY(end);
+        return count + 4;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if ((ready.get() & DIRTY) != 0) {
+            front = ready.getAndSet(front) & INDEX_MASK;
+        }
+        Snapshot snapshot = snapshots[front];
+        if (snapshot.pointCount == 0) {
+            return;
         }
+
+        Matrix matrix = getTransformationMatrix();
+        matrix.mapPoints(mapped.points, 0, snapshot.points, 0, snapshot.pointCount);
+        matrix.mapPoints(mapped.leftLines, 0, snapshot.leftLines, 0, snapshot.leftLineCount / 2);
+        matrix.mapPoints(mapped.rightLines, 0, snapshot.rightLines, 0, snapshot.rightLineCount / 2);
+        matrix.mapPoints(mapped.centreLines, 0, snapshot.centreLines, 0, snapshot.centreLineCount / 2);
+
+        canvas.drawLines(mapped.leftLines, 0, snapshot.leftLineCount, leftPaint);
+        canvas.drawLines(mapped.rightLines, 0, snapshot.rightLineCount, rightPaint);
+        canvas.drawLines(mapped.centreLines, 0, snapshot.centreLineCount, whitePaint);
+        canvas.drawPoints(mapped.points, 0, snapshot.pointCount * 2, pointPaint);
     }
-}
\ No newline at end of file
+}
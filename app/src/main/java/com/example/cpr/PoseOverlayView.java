@@ -15,6 +15,7 @@ public class PoseOverlayView extends View {
     private Pose currentPose;
     private final Paint landmarkPaint;
     private final Paint linePaint;
+    private final Paint referencePaint;
     private int viewWidth;
     private int viewHeight;
     private float scaleFactor = 1.0f;
@@ -33,6 +34,11 @@ public class PoseOverlayView extends View {
         linePaint.setColor(Color.GREEN);
         linePaint.setStrokeWidth(5f);
         linePaint.setStyle(Paint.Style.STROKE);
+
+        // Setup paint for compression reference lines
+        referencePaint = new Paint(linePaint);
+        referencePaint.setColor(Color.YELLOW);
+        referencePaint.setStrokeWidth(2f);
     }
 
     @Override
@@ -93,11 +99,6 @@ public class PoseOverlayView extends View {
             float avgShoulderY = (leftShoulder.getPosition().y + rightShoulder.getPosition().y) / 2;
 
             // Draw horizontal lines at wrist and shoulder level
-            Paint referencePaint = new Paint(linePaint);
-            referencePaint.setColor(Color.YELLOW);
-            referencePaint.setStrokeWidth(2f);
-            referencePaint.setStyle(Paint.Style.STROKE);
-
             canvas.drawLine(0, translateY(avgWristY), viewWidth, translateY(avgWristY), referencePaint);
             canvas.drawLine(0, translateY(avgShoulderY), viewWidth, translateY(avgShoulderY), referencePaint);
         }
@@ -0,0 +1,49 @@
+package com.example.cpr;
+
+// Restores sequence order for results that complete out of order. Sequence numbers must be
+// handed out consecutively from zero and no more than capacity may be outstanding at once.
+class ReorderBuffer<T> {
+    private final Object[] values;
+    private final boolean[] completed;
+    private long nextSequence = 0;
+
+    ReorderBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        values = new Object[capacity];
+        completed = new boolean[capacity];
+    }
+
+    // A null value marks a sequence that finished without a result, so it does not block later ones
+    void complete(long sequence, T value) {
+        if (sequence < nextSequence || sequence >= nextSequence + values.length) {
+            throw new IllegalStateException("Sequence " + sequence + " outside window starting at "
+                    + nextSequence);
+        }
+        int slot = (int) (sequence % values.length);
+        values[slot] = value;
+        completed[slot] = true;
+    }
+
+    boolean hasNext() {
+        return completed[(int) (nextSequence % values.length)];
+    }
+
+    @SuppressWarnings("unchecked")
+    T next() {
+        int slot = (int) (nextSequence % values.length);
+        if (!completed[slot]) {
+            throw new IllegalStateException("Sequence " + nextSequence + " has not completed");
+        }
+        T value = (T) values[slot];
+        values[slot] = null;
+        completed[slot] = false;
+        nextSequence++;
+        return value;
+    }
+
+    long getNextSequence() {
+        return nextSequence;
+    }
+}
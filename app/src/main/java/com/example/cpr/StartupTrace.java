@@ -0,0 +1,48 @@
+package com.example.cpr;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Times the cold-start critical path from process start to the first metric on screen, in
+// elapsed realtime milliseconds. Each milestone keeps its first mark only, and marking is
+// safe from any thread. The summary is logged once the first metric has been shown.
+class StartupTrace {
+    private static final String TAG = "CPRStartup";
+
+    enum Milestone {
+        ACTIVITY_CREATED, DETECTOR_READY, FIRST_PREVIEW_FRAME, FIRST_DETECTION, FIRST_METRIC
+    }
+
+    private final long processStartMillis = Process.getStartElapsedRealtime();
+    private final AtomicLongArray marks = new AtomicLongArray(Milestone.values().length);
+
+    // Returns true the first time the milestone is reached
+    boolean mark(Milestone milestone) {
+        if (marks.get(milestone.ordinal()) != 0
+                || !marks.compareAndSet(milestone.ordinal(), 0, SystemClock.elapsedRealtime())) {
+            return false;
+        }
+        if (milestone == Milestone.FIRST_METRIC) {
+            Log.i(TAG, summary());
+        }
+        return true;
+    }
+
+    boolean isMarked(Milestone milestone) {
+        return marks.get(milestone.ordinal()) != 0;
+    }
+
+    String summary() {
+        StringBuilder summary = new StringBuilder("Since process start:");
+        for (Milestone milestone : Milestone.values()) {
+            long mark = marks.get(milestone.ordinal());
+            summary.append(' ').append(milestone.name().toLowerCase(Locale.US)).append('=');
+            summary.append(mark == 0 ? "-" : (mark - processStartMillis) + "ms");
+        }
+        return summary.toString();
+    }
+}
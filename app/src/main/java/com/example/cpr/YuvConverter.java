@@ -0,0 +1,69 @@
+package com.example.cpr;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+
+// Copies YUV_420_888 frames, or an even-aligned crop of them, into NV21 byte arrays so the
+// ImageProxy can be released before pose detection finishes.
+final class YuvConverter {
+    private YuvConverter() {
+    }
+
+    static int nv21Size(int width, int height) {
+        return width * height * 3 / 2;
+    }
+
+    static void toNv21(ImageProxy image, byte[] out) {
+        toNv21(image, 0, 0, image.getWidth() & ~1, image.getHeight() & ~1, out);
+    }
+
+    // left, top, width and height must be even
+    static void toNv21(ImageProxy image, int left, int top, int width, int height, byte[] out) {
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+
+        // Luma, row by row to drop any row padding and the area outside the crop
+        ByteBuffer yBuffer = planes[0].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        int yPixelStride = planes[0].getPixelStride();
+        int offset = 0;
+        if (yPixelStride == 1 && yRowStride == width && left == 0 && top == 0) {
+            yBuffer.position(0);
+            yBuffer.get(out, 0, width * height);
+            offset = width * height;
+        } else if (yPixelStride == 1) {
+            for (int row = 0; row < height; row++) {
+                yBuffer.position((top + row) * yRowStride + left);
+                yBuffer.get(out, offset, width);
+                offset += width;
+            }
+        } else {
+            for (int row = 0; row < height; row++) {
+                int rowStart = (top + row) * yRowStride + left * yPixelStride;
+                for (int col = 0; col < width; col++) {
+                    out[offset++] = yBuffer.get(rowStart + col * yPixelStride);
+                }
+            }
+        }
+
+        // Chroma, interleaved V then U
+        ByteBuffer uBuffer = planes[1].getBuffer();
+        ByteBuffer vBuffer = planes[2].getBuffer();
+        int uRowStride = planes[1].getRowStride();
+        int vRowStride = planes[2].getRowStride();
+        int uPixelStride = planes[1].getPixelStride();
+        int vPixelStride = planes[2].getPixelStride();
+        int chromaLeft = left / 2;
+        int chromaTop = top / 2;
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        for (int row = 0; row < chromaHeight; row++) {
+            int uRowStart = (chromaTop + row) * uRowStride + chromaLeft * uPixelStride;
+            int vRowStart = (chromaTop + row) * vRowStride + chromaLeft * vPixelStride;
+            for (int col = 0; col < chromaWidth; col++) {
+                out[offset++] = vBuffer.get(vRowStart + col * vPixelStride);
+                out[offset++] = uBuffer.get(uRowStart + col * uPixelStride);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cpr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReorderBufferTest {
+    @Test
+    public void releasesResultsInSequenceOrder() {
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(3);
+
+        buffer.complete(2, "c");
+        buffer.complete(1, "b");
+        assertFalse(buffer.hasNext());
+
+        buffer.complete(0, "a");
+        assertEquals("a", buffer.next());
+        assertEquals("b", buffer.next());
+        assertEquals("c", buffer.next());
+        assertFalse(buffer.hasNext());
+    }
+
+    @Test
+    public void failedSequenceDoesNotBlockLaterResults() {
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(2);
+
+        buffer.complete(1, "b");
+        buffer.complete(0, null);
+
+        assertTrue(buffer.hasNext());
+        assertNull(buffer.next());
+        assertEquals("b", buffer.next());
+        assertEquals(2, buffer.getNextSequence());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsSequenceBeyondCapacity() {
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(2);
+        buffer.complete(2, "c");
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.cpr.baselineprofile;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+// Captures the classes and methods the app runs from launch to the first metric, and through
+// the first seconds of the frame loop, into app/src/release/generated/baselineProfiles. Run with
+// ./gradlew :app:generateBaselineProfile on a connected device.
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class BaselineProfileGenerator {
+    @Rule
+    public BaselineProfileRule rule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        rule.collect(CprJourney.PACKAGE_NAME, 15, 3, null, true, false, name -> true, scope -> {
+            CprJourney.grantCamera(scope);
+            scope.pressHome();
+            CprJourney.startAndWaitForFirstMetric(scope);
+            CprJourney.analyseForAWhile();
+            return Unit.INSTANCE;
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.cpr.baselineprofile;
+
+import android.os.SystemClock;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+// The cold-start journey shared by the profile generator and the startup benchmark: launch with
+// the camera already granted and wait for the first metric on screen, which is also when the
+// activity reports itself fully drawn. Point the device at anything, the metrics show before a
+// pose is found.
+final class CprJourney {
+    static final String PACKAGE_NAME = "com.example.cpr";
+
+    private static final long FIRST_METRIC_TIMEOUT_MS = 10_000;
+    // Long enough for the detector warm-up and a few hundred analysed frames
+    private static final long STEADY_STATE_MS = 5_000;
+
+    private CprJourney() {
+    }
+
+    static void grantCamera(MacrobenchmarkScope scope) {
+        try {
+            scope.getDevice().executeShellCommand(
+                    "pm grant " + scope.getPackageName() + " android.permission.CAMERA");
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grant the camera permission", e);
+        }
+    }
+
+    static void startAndWaitForFirstMetric(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        boolean shown = scope.getDevice().wait(Until.hasObject(
+                By.res(scope.getPackageName(), "metrics_text_view").text(Pattern.compile(".+"))),
+                FIRST_METRIC_TIMEOUT_MS);
+        if (!shown) {
+            throw new IllegalStateException("No metric shown within " + FIRST_METRIC_TIMEOUT_MS + " ms");
+        }
+    }
+
+    static void analyseForAWhile() {
+        SystemClock.sleep(STEADY_STATE_MS);
+    }
+}
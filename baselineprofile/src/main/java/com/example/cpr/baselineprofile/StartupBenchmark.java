@@ -0,0 +1,52 @@
+package com.example.cpr.baselineprofile;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Cold start with and without the baseline profile. timeToFullDisplayMs is the time to the
+// first metric, since the activity reports itself fully drawn then. Run with
+// ./gradlew :baselineprofile:connectedBenchmarkReleaseAndroidTest
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithoutCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupWithBaselineProfile() {
+        startup(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        rule.measureRepeated(CprJourney.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()), compilationMode,
+                StartupMode.COLD, ITERATIONS, scope -> {
+                    CprJourney.grantCamera(scope);
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                }, scope -> {
+                    CprJourney.startAndWaitForFirstMetric(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
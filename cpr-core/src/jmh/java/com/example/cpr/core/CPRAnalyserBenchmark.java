@@ -0,0 +1,77 @@
+package com.example.cpr.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-frame cost of CPRAnalyser.analyze over synthetic traces. Run with the gc profiler
+// (configured in build.gradle) to see allocation rate alongside ns/op.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CPRAnalyserBenchmark {
+    private static final int FPS = 30;
+    private static final int TRACE_FRAMES = 60 * FPS;
+    // Twenty minutes of continuous CPR
+    private static final int LONG_SESSION_FRAMES = 20 * 60 * FPS;
+
+    @Param({"STEADY", "NOISY", "HANDS_LEAVING"})
+    public SyntheticTrace.Scenario scenario;
+
+    @Param({"CROSSING", "SLIDING_DFT"})
+    public String rateEstimator;
+
+    private SyntheticTrace trace;
+    private SyntheticTrace longSession;
+    private CPRAnalyser analyser;
+    private final LandmarkFrame frame = new LandmarkFrame();
+    private final CPRMetrics metrics = new CPRMetrics();
+    private long frameIndex;
+
+    @Setup
+    public void setUp() {
+        trace = SyntheticTrace.generate(scenario, TRACE_FRAMES, FPS, 42);
+        longSession = SyntheticTrace.generate(scenario, LONG_SESSION_FRAMES, FPS, 42);
+        analyser = newAnalyser();
+        frameIndex = 0;
+    }
+
+    private CPRAnalyser newAnalyser() {
+        return new CPRAnalyser("SLIDING_DFT".equals(rateEstimator)
+                ? new SlidingDftRateEstimator() : new CrossingRateEstimator());
+    }
+
+    @Benchmark
+    public CPRMetrics analyzeFrame() {
+        trace.fill(frameIndex++, frame);
+        return analyser.analyze(frame, metrics);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    @OperationsPerInvocation(LONG_SESSION_FRAMES)
+    public CPRMetrics analyzeLongSession() {
+        CPRAnalyser sessionAnalyser = newAnalyser();
+        for (int i = 0; i < LONG_SESSION_FRAMES; i++) {
+            longSession.fill(i, frame);
+            sessionAnalyser.analyze(frame, metrics);
+        }
+        return metrics;
+    }
+}
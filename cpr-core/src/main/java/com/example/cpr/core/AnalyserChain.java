@@ -0,0 +1,64 @@
+package com.example.cpr.core;
+
+import java.util.Locale;
+
+// Runs a fixed list of analysers over each shared LandmarkFrame in a single pass, in order, and
+// combines their findings in one TechniqueReport. Landmarks are extracted once per frame
+// upstream, so adding a check costs only its own arithmetic, which is timed per analyser.
+//
+// Confined to the analysis thread; allocation-free per frame.
+public class AnalyserChain {
+    private final FrameAnalyser[] analysers;
+    private final LatencyHistogram[] histograms;
+
+    public AnalyserChain(FrameAnalyser... analysers) {
+        if (analysers.length == 0) {
+            throw new IllegalArgumentException("Need at least one analyser");
+        }
+        this.analysers = analysers.clone();
+        histograms = new LatencyHistogram[analysers.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // Later analysers see what earlier ones wrote, e.g. whether the hands are in position
+    public TechniqueReport analyse(LandmarkFrame frame, TechniqueReport out) {
+        out.clear();
+        for (int i = 0; i < analysers.length; i++) {
+            long start = System.nanoTime();
+            analysers[i].analyse(frame, out);
+            histograms[i].record(System.nanoTime() - start);
+        }
+        return out;
+    }
+
+    public void reset() {
+        for (FrameAnalyser analyser : analysers) {
+            analyser.reset();
+        }
+    }
+
+    public int size() {
+        return analysers.length;
+    }
+
+    public FrameAnalyser getAnalyser(int index) {
+        return analysers[index];
+    }
+
+    public LatencyHistogram getHistogram(int index) {
+        return histograms[index];
+    }
+
+    // One line per analyser with count and p50/p99/max in microseconds
+    public void appendSummary(StringBuilder out) {
+        for (int i = 0; i < analysers.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            out.append(String.format(Locale.US, "%-24s n=%-6d p50=%.1f p99=%.1f max=%.1f\n",
+                    analysers[i].getClass().getSimpleName(), histogram.getCount(),
+                    histogram.getPercentileNanos(50) / 1e3, histogram.getPercentileNanos(99) / 1e3,
+                    histogram.getMaxNanos() / 1e3));
+        }
+    }
+}
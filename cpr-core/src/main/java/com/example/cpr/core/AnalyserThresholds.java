@@ -0,0 +1,40 @@
+package com.example.cpr.core;
+
+import java.util.Locale;
+
+// Tunable thresholds for CPRAnalyser. Distances are fractions of the upright frame.
+public final class AnalyserThresholds {
+    public static final AnalyserThresholds DEFAULT =
+            new AnalyserThresholds(0.15f, 0.30f, 300_000_000L, 0.1f);
+
+    private final float minCompressionDistance;
+    private final float maxCompressionDistance;
+    private final long minCompressionIntervalNanos;
+    private final float maxHandSeparation;
+
+    public AnalyserThresholds(float minCompressionDistance, float maxCompressionDistance,
+                              long minCompressionIntervalNanos, float maxHandSeparation) {
+        if (minCompressionDistance <= 0 || maxCompressionDistance < minCompressionDistance) {
+            throw new IllegalArgumentException("Compression distances must satisfy 0 < min <= max");
+        }
+        if (minCompressionIntervalNanos < 0 || maxHandSeparation <= 0) {
+            throw new IllegalArgumentException("Interval and hand separation must be positive");
+        }
+        this.minCompressionDistance = minCompressionDistance;
+        this.maxCompressionDistance = maxCompressionDistance;
+        this.minCompressionIntervalNanos = minCompressionIntervalNanos;
+        this.maxHandSeparation = maxHandSeparation;
+    }
+
+    public float getMinCompressionDistance() { return minCompressionDistance; }
+    public float getMaxCompressionDistance() { return maxCompressionDistance; }
+    public long getMinCompressionIntervalNanos() { return minCompressionIntervalNanos; }
+    public float getMaxHandSeparation() { return maxHandSeparation; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "minDistance=%.3f maxDistance=%.3f minInterval=%dms maxSeparation=%.3f",
+                minCompressionDistance, maxCompressionDistance,
+                minCompressionIntervalNanos / 1_000_000, maxHandSeparation);
+    }
+}
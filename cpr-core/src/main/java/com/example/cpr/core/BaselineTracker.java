@@ -0,0 +1,81 @@
+package com.example.cpr.core;
+
+// Streaming estimate of the resting wrist height: the highest point on screen, i.e. the
+// minimum y, over a sliding time window. Compressions always return towards rest, so the
+// window minimum follows the recoil points, and a camera shift or a rescuer repositioning is
+// absorbed within one window instead of skewing every later depth. Samples pass through a
+// three-point median first, so a single-frame outlier such as a misdetection or an
+// overshooting prediction cannot drag the baseline up.
+//
+// A monotonic deque over fixed ring buffers gives amortised O(1) per sample in bounded
+// memory. If more samples than the capacity arrive within one window, the oldest are dropped
+// early, which only shortens the window.
+public class BaselineTracker {
+    private final long windowNanos;
+    private final long[] times;
+    private final float[] values;
+    private final int mask;
+    // Deque of candidates with increasing times and increasing values; the front is the minimum
+    private long head = 0;
+    private long tail = 0;
+    // The two samples before this one, for the median
+    private float previous;
+    private float beforePrevious;
+    private int history = 0;
+
+    // capacity is rounded up to a power of two
+    public BaselineTracker(long windowNanos, int capacity) {
+        if (windowNanos <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Window and capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.windowNanos = windowNanos;
+        times = new long[size];
+        values = new float[size];
+        mask = size - 1;
+    }
+
+    // Adds a wrist height and returns the baseline including it
+    public float onSample(long timestampNanos, float sample) {
+        float y = history >= 2 ? median(beforePrevious, previous, sample) : sample;
+        beforePrevious = previous;
+        previous = sample;
+        history++;
+
+        // Later, lower-or-equal samples outlive everything above them
+        while (tail > head && values[(int) ((tail - 1) & mask)] >= y) {
+            tail--;
+        }
+        if (tail - head == times.length) {
+            head++;
+        }
+        int slot = (int) (tail & mask);
+        times[slot] = timestampNanos;
+        values[slot] = y;
+        tail++;
+
+        while (times[(int) (head & mask)] < timestampNanos - windowNanos) {
+            head++;
+        }
+        return values[(int) (head & mask)];
+    }
+
+    private static float median(float a, float b, float c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    public boolean isEmpty() {
+        return tail == head;
+    }
+
+    // NaN until the first sample
+    public float getBaseline() {
+        return isEmpty() ? Float.NaN : values[(int) (head & mask)];
+    }
+
+    public void reset() {
+        head = 0;
+        tail = 0;
+        history = 0;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.cpr.core;
+
+public class CPRAnalyser {
+    // Guideline compression rate band, in compressions per minute
+    public static final float MIN_TARGET_RATE = 100f;
+    public static final float MAX_TARGET_RATE = 120f;
+    // A rate that more than halves in one frame from at least this is flagged as an anomaly
+    private static final float RATE_COLLAPSE_MIN_RATE = 60f;
+    // Resting position is the highest wrist point over this window, which spans several
+    // compressions even at a slow rate
+    private static final long BASELINE_WINDOW_NANOS = 3_000_000_000L;
+    private static final int BASELINE_CAPACITY = 256;
+    // Hands may separate this long, e.g. a grip adjustment, before measurements are reset
+    static final long HANDS_APART_GRACE_NANOS = 500_000_000L;
+
+    private final RateEstimator rateEstimator;
+
+    // Thresholds for compression detection and hand position
+    private final float minCompressionDistance;
+    private final float maxCompressionDistance;
+    private final long minCompressionIntervalNanos;
+    private final float maxHandSeparation; // Maximum allowed distance between hands
+
+    // State tracking
+    private boolean hasCompression = false;
+    private long lastCompressionTime = 0;
+    private float lastWristPosition = 0f;
+    private boolean isInCompressionDown = false;
+    private final BaselineTracker restingWristPosition =
+            new BaselineTracker(BASELINE_WINDOW_NANOS, BASELINE_CAPACITY);
+    // Start of the current separation, or -1 while the hands are together
+    private long handsApartSinceNanos = -1;
+    private boolean handsInPosition = false;
+    private float lastRate = 0f;
+    private long lastFrameTime = 0;
+    private int compressionCount = 0;
+    private final CompressionSegmenter segmenter = new CompressionSegmenter();
+    private FlightRecorder flightRecorder;
+    // Landmarks present in the last frame that lacked some, or -1 after a complete frame
+    private int missingLandmarksMask = -1;
+
+    public CPRAnalyser() {
+        this(new CrossingRateEstimator());
+    }
+
+    public CPRAnalyser(RateEstimator rateEstimator) {
+        this(rateEstimator, AnalyserThresholds.DEFAULT);
+    }
+
+    public CPRAnalyser(RateEstimator rateEstimator, AnalyserThresholds thresholds) {
+        this.rateEstimator = rateEstimator;
+        this.minCompressionDistance = thresholds.getMinCompressionDistance();
+        this.maxCompressionDistance = thresholds.getMaxCompressionDistance();
+        this.minCompressionIntervalNanos = thresholds.getMinCompressionIntervalNanos();
+        this.maxHandSeparation = thresholds.getMaxHandSeparation();
+    }
+
+    public CPRMetrics analyze(LandmarkFrame frame) {
+        return analyze(frame, new CPRMetrics());
+    }
+
+    // Allocation-free variant for the frame loop: the result is written into out and returned
+    public CPRMetrics analyze(LandmarkFrame frame, CPRMetrics out) {
+        if (frame == null || frame.isEmpty()) {
+            return out.set(0, 0, false, false);
+        }
+
+        if (!frame.isPresent(LandmarkFrame.LEFT_WRIST) || !frame.isPresent(LandmarkFrame.RIGHT_WRIST)
+                || !frame.isPresent(LandmarkFrame.LEFT_SHOULDER)
+                || !frame.isPresent(LandmarkFrame.RIGHT_SHOULDER)) {
+            int presentMask = 0;
+            for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+                if (frame.isPresent(landmark)) {
+                    presentMask |= 1 << landmark;
+                }
+            }
+            // Only record when the set of landmarks changes, not on every frame of an outage
+            if (presentMask != missingLandmarksMask && flightRecorder != null) {
+                flightRecorder.record(FlightRecorder.EVENT_LANDMARKS_MISSING, presentMask,
+                        frame.getTimestampNanos(), 0f, 0f);
+            }
+            missingLandmarksMask = presentMask;
+            return out.set(0, 0, false, false);
+        }
+        missingLandmarksMask = -1;
+
+        float leftWristX = frame.getX(LandmarkFrame.LEFT_WRIST);
+        float leftWristY = frame.getY(LandmarkFrame.LEFT_WRIST);
+        float rightWristX = frame.getX(LandmarkFrame.RIGHT_WRIST);
+        float rightWristY = frame.getY(LandmarkFrame.RIGHT_WRIST);
+        long currentTime = frame.getTimestampNanos();
+        lastFrameTime = currentTime;
+
+        // Check if hands are in proper position
+        float handSeparation = calculateHandSeparation(leftWristX, leftWristY, rightWristX, rightWristY);
+        handsInPosition = handSeparation <= maxHandSeparation;
+
+        // Calculate average position
+        float currentWristY = (leftWristY + rightWristY) / 2;
+
+        if (flightRecorder != null) {
+            flightRecorder.record(FlightRecorder.EVENT_FRAME, handsInPosition ? 1 : 0, currentTime,
+                    handSeparation, currentWristY);
+        }
+
+        // If hands aren't in position, return early with no compression. Measurements survive
+        // a brief separation and are only reset once it outlasts the grace period
+        if (!handsInPosition) {
+            if (handsApartSinceNanos < 0) {
+                handsApartSinceNanos = currentTime;
+            }
+            if (currentTime - handsApartSinceNanos < HANDS_APART_GRACE_NANOS) {
+                return out.set(0, rateEstimator.getRate(), false, false);
+            }
+            if (!restingWristPosition.isEmpty() && flightRecorder != null) {
+                flightRecorder.record(FlightRecorder.EVENT_RESET, FlightRecorder.RESET_HANDS_APART,
+                        currentTime, 0f, 0f);
+            }
+            resetMeasurements();
+            return out.set(0, 0, false, false);
+        }
+        handsApartSinceNanos = -1;
+
+        rateEstimator.onSample(currentTime, currentWristY);
+
+        // Calculate vertical distance from the resting position, which follows camera shifts.
+        // The baseline ignores single-frame spikes, so a raw sample can sit just above it
+        float compressionDepth = Math.max(0f,
+                currentWristY - restingWristPosition.onSample(currentTime, currentWristY));
+        segmenter.onSample(currentTime, compressionDepth);
+
+        // Detect compression phases
+        boolean compressed = false;
+        if (!isInCompressionDown &&
+                compressionDepth > minCompressionDistance &&
+                currentWristY > lastWristPosition &&
+                (!hasCompression || currentTime - lastCompressionTime > minCompressionIntervalNanos)) {
+
+            isInCompressionDown = true;
+            segmenter.onCompressionDown(currentTime, compressionDepth);
+            if (flightRecorder != null) {
+                flightRecorder.record(FlightRecorder.EVENT_COMPRESSION_DOWN, 0, currentTime,
+                        compressionDepth, currentWristY);
+            }
+
+        } else if (isInCompressionDown && currentWristY < lastWristPosition &&
+                compressionDepth < minCompressionDistance) {
+
+            isInCompressionDown = false;
+            hasCompression = true;
+            lastCompressionTime = currentTime;
+            rateEstimator.onCompression(currentTime);
+            compressed = true;
+            compressionCount++;
+            segmenter.onCompressionReleased(currentTime, compressionDepth);
+        }
+
+        lastWristPosition = currentWristY;
+
+        float rate = rateEstimator.getRate();
+        if (flightRecorder != null) {
+            if (compressed) {
+                flightRecorder.record(FlightRecorder.EVENT_COMPRESSION, 0, currentTime,
+                        compressionDepth, rate);
+            }
+            if (lastRate >= RATE_COLLAPSE_MIN_RATE && rate < lastRate / 2) {
+                flightRecorder.recordAnomaly(FlightRecorder.EVENT_RATE_COLLAPSE, 0, currentTime,
+                        lastRate, rate);
+            }
+        }
+        lastRate = rate;
+
+        boolean isGoodTechnique = evaluateTechnique(compressionDepth, rate);
+
+        return out.set(compressionDepth, rate, isGoodTechnique, true);
+    }
+
+    private float calculateHandSeparation(float leftX, float leftY, float rightX, float rightY) {
+        float dx = leftX - rightX;
+        float dy = leftY - rightY;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private boolean evaluateTechnique(float depth, float rate) {
+        boolean depthGood = depth >= minCompressionDistance && depth <= maxCompressionDistance;
+        boolean rateGood = rate >= MIN_TARGET_RATE && rate <= MAX_TARGET_RATE;
+        return depthGood && rateGood && handsInPosition;
+    }
+
+    private void resetMeasurements() {
+        rateEstimator.reset();
+        segmenter.onInterrupted();
+        hasCompression = false;
+        lastCompressionTime = 0;
+        lastWristPosition = 0f;
+        isInCompressionDown = false;
+        restingWristPosition.reset();
+        lastRate = 0f;
+    }
+
+    // Completed compressions since construction or the last explicit reset
+    public int getCompressionCount() {
+        return compressionCount;
+    }
+
+    // Per-compression cycles and pauses, delivered on the analysis thread during analyze()
+    public void setCycleListener(CompressionSegmenter.Listener listener) {
+        segmenter.setListener(listener);
+    }
+
+    // Events are recorded on the analysis thread; pass null to stop recording
+    public void setFlightRecorder(FlightRecorder recorder) {
+        flightRecorder = recorder;
+    }
+
+    // Call on the analysis thread once no more frames will be analysed, with the time of the
+    // last one, so a trailing hands-off pause is still reported to the cycle listener
+    public void endSession(long timestampNanos) {
+        segmenter.onSessionEnd(timestampNanos);
+    }
+
+    public void reset() {
+        if (flightRecorder != null) {
+            flightRecorder.record(FlightRecorder.EVENT_RESET, FlightRecorder.RESET_EXPLICIT,
+                    lastFrameTime, 0f, 0f);
+        }
+        resetMeasurements();
+        handsInPosition = false;
+        handsApartSinceNanos = -1;
+        missingLandmarksMask = -1;
+        compressionCount = 0;
+        segmenter.reset();
+    }
+}
@@ -1,20 +1,28 @@
-package com.example.cpr;
+package com.example.cpr.core;
 
 public class CPRMetrics {
-    private final float depth;
-    private final float rate;
-    private final boolean goodTechnique;
-    private final boolean handsInPosition;
+    private float depth;
+    private float rate;
+    private boolean goodTechnique;
+    private boolean handsInPosition;
+
+    public CPRMetrics() {
+    }
 
     public CPRMetrics(float depth, float rate, boolean goodTechnique, boolean handsInPosition) {
+        set(depth, rate, goodTechnique, handsInPosition);
+    }
+
+    CPRMetrics set(float depth, float rate, boolean goodTechnique, boolean handsInPosition) {
         this.depth = depth;
         this.rate = rate;
         this.goodTechnique = goodTechnique;
         this.handsInPosition = handsInPosition;
+        return this;
     }
 
     public float getDepth() { return depth; }
     public float getRate() { return rate; }
     public boolean isGoodTechnique() { return goodTechnique; }
     public boolean areHandsInPosition() { return handsInPosition; }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.example.cpr.core;
+
+// Generates metronome clicks as 16-bit mono PCM, once up front, so the audio thread only
+// copies samples. A click is a sine burst with a short linear attack, to avoid a pop, and an
+// exponential decay that has fallen to about 1% by the end.
+public final class ClickSynth {
+    private static final double ATTACK_SECONDS = 0.001;
+
+    private ClickSynth() {
+    }
+
+    // amplitude is a fraction of full scale
+    public static short[] click(int sampleRate, float frequencyHz, int durationMillis, float amplitude) {
+        if (sampleRate <= 0 || durationMillis <= 0 || amplitude < 0 || amplitude > 1) {
+            throw new IllegalArgumentException("Invalid click parameters");
+        }
+        int length = (int) ((long) sampleRate * durationMillis / 1000);
+        short[] samples = new short[length];
+        int attack = Math.max(1, (int) (sampleRate * ATTACK_SECONDS));
+        // exp(-length / decay) = exp(-4.6) ~ 1%
+        double decay = length / 4.6;
+        double phaseStep = 2 * Math.PI * frequencyHz / sampleRate;
+        for (int i = 0; i < length; i++) {
+            double envelope = Math.exp(-i / decay) * Math.min(1.0, (double) i / attack);
+            samples[i] = (short) Math.round(Short.MAX_VALUE * amplitude * envelope * Math.sin(phaseStep * i));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.cpr.core;
+
+// Hand position, depth and rate, from the wrapped CPRAnalyser. Runs first in a chain, as the
+// other checks only apply while the hands are on the chest.
+public class CompressionCheck implements FrameAnalyser {
+    private final CPRAnalyser analyser;
+
+    public CompressionCheck(CPRAnalyser analyser) {
+        this.analyser = analyser;
+    }
+
+    @Override
+    public void analyse(LandmarkFrame frame, TechniqueReport report) {
+        CPRMetrics metrics = analyser.analyze(frame, report.getMetrics());
+        if (!metrics.areHandsInPosition()) {
+            report.addFault(TechniqueReport.FAULT_HANDS_APART);
+        } else if (!metrics.isGoodTechnique()) {
+            report.addFault(TechniqueReport.FAULT_DEPTH_OR_RATE);
+        }
+    }
+
+    @Override
+    public void reset() {
+        analyser.reset();
+    }
+
+    public CPRAnalyser getAnalyser() {
+        return analyser;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.cpr.core;
+
+// One compression from the top of the downstroke, through the deepest point, back to the
+// top. Fixed size and reused by the segmenter, so copy anything that must outlive a callback.
+// Depths are fractions of the upright frame measured from the resting wrist position.
+public final class CompressionCycle {
+    private int index;
+    private long startNanos;
+    private long bottomNanos;
+    private long endNanos;
+    private float peakDepth;
+    private float residualDepth;
+    private boolean fullRecoil;
+
+    CompressionCycle set(int index, long startNanos, long bottomNanos, long endNanos,
+                         float peakDepth, float residualDepth, boolean fullRecoil) {
+        this.index = index;
+        this.startNanos = startNanos;
+        this.bottomNanos = bottomNanos;
+        this.endNanos = endNanos;
+        this.peakDepth = peakDepth;
+        this.residualDepth = residualDepth;
+        this.fullRecoil = fullRecoil;
+        return this;
+    }
+
+    public void copyFrom(CompressionCycle other) {
+        set(other.index, other.startNanos, other.bottomNanos, other.endNanos,
+                other.peakDepth, other.residualDepth, other.fullRecoil);
+    }
+
+    // Counts from 0 since the segmenter was created or reset
+    public int getIndex() { return index; }
+    public long getStartNanos() { return startNanos; }
+    public long getBottomNanos() { return bottomNanos; }
+    public long getEndNanos() { return endNanos; }
+    public long getDurationNanos() { return endNanos - startNanos; }
+    public float getPeakDepth() { return peakDepth; }
+    // Depth at the end of the cycle, within the recoil tolerance when recoil was full
+    public float getResidualDepth() { return residualDepth; }
+    public boolean isFullRecoil() { return fullRecoil; }
+
+    // Fraction of the cycle spent pushing down; guidelines aim for about 0.5
+    public float getDutyCycle() {
+        long duration = endNanos - startNanos;
+        return duration <= 0 ? 0f : (float) (bottomNanos - startNanos) / duration;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cpr.core;
+
+// Splits the wrist depth signal into compression cycles and hands-off pauses as it streams
+// in, keeping only a few running extremes, so each frame is O(1) and nothing is buffered.
+// CPRAnalyser drives it with its own downstroke and release decisions, so cycles always
+// agree with the compression count.
+//
+// A cycle starts on the last frame within the recoil tolerance of rest before its downstroke,
+// bottoms out at the deepest point before release, and ends on the first frame back within
+// the tolerance. Without full recoil the shallowest point between the two strokes stands in
+// for both the end of one cycle and the start of the next. Cycles
+// with full recoil are reported on that frame, the rest when the next downstroke begins. A gap
+// longer than the pause threshold between one cycle's end and the next one's start is
+// reported as a pause, as is one still open when the session ends.
+public class CompressionSegmenter {
+    public static final float DEFAULT_RECOIL_TOLERANCE = 0.02f;
+    public static final long DEFAULT_PAUSE_THRESHOLD_NANOS = 2_000_000_000L;
+
+    public interface Listener {
+        // Called on the analysis thread; cycle is reused after the call returns
+        void onCycle(CompressionCycle cycle);
+
+        void onPause(long startNanos, long endNanos);
+    }
+
+    private enum Phase { WAITING, DOWN, RECOIL }
+
+    private final float recoilTolerance;
+    private final long pauseThresholdNanos;
+    private final CompressionCycle cycle = new CompressionCycle();
+    private Listener listener;
+
+    private Phase phase = Phase.WAITING;
+    // Shallowest point since the last release, the start of the next cycle
+    private float topDepth = Float.MAX_VALUE;
+    private long topNanos;
+    // Last frame within the recoil tolerance since the last release, or -1
+    private long atRestNanos = -1;
+    // The cycle being built
+    private long startNanos;
+    private long bottomNanos;
+    private float peakDepth;
+    private int cycles = 0;
+    // End of the last emitted cycle, or -1 before the first
+    private long lastEndNanos = -1;
+
+    public CompressionSegmenter() {
+        this(DEFAULT_RECOIL_TOLERANCE, DEFAULT_PAUSE_THRESHOLD_NANOS);
+    }
+
+    public CompressionSegmenter(float recoilTolerance, long pauseThresholdNanos) {
+        if (recoilTolerance < 0 || pauseThresholdNanos <= 0) {
+            throw new IllegalArgumentException("Tolerance and pause threshold must be positive");
+        }
+        this.recoilTolerance = recoilTolerance;
+        this.pauseThresholdNanos = pauseThresholdNanos;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Every frame with the hands in position, depth measured from rest
+    public void onSample(long timestampNanos, float depth) {
+        if (phase == Phase.DOWN) {
+            if (depth > peakDepth) {
+                peakDepth = depth;
+                bottomNanos = timestampNanos;
+            }
+            return;
+        }
+        // Latest of equally shallow points, so a pause at rest isn't counted as downstroke
+        if (depth <= topDepth) {
+            topDepth = depth;
+            topNanos = timestampNanos;
+        }
+        if (depth <= recoilTolerance) {
+            atRestNanos = timestampNanos;
+        }
+        if (phase == Phase.RECOIL && depth <= recoilTolerance) {
+            finishCycle(timestampNanos, depth, true);
+        }
+    }
+
+    public void onCompressionDown(long timestampNanos, float depth) {
+        if (phase == Phase.RECOIL) {
+            finishCycle(topNanos, topDepth, false);
+        }
+        if (atRestNanos >= 0) {
+            startNanos = atRestNanos;
+        } else {
+            startNanos = topDepth == Float.MAX_VALUE ? timestampNanos : topNanos;
+        }
+        if (lastEndNanos >= 0 && startNanos - lastEndNanos > pauseThresholdNanos && listener != null) {
+            listener.onPause(lastEndNanos, startNanos);
+        }
+        peakDepth = depth;
+        bottomNanos = timestampNanos;
+        phase = Phase.DOWN;
+    }
+
+    public void onCompressionReleased(long timestampNanos, float depth) {
+        phase = Phase.RECOIL;
+        topDepth = depth;
+        topNanos = timestampNanos;
+        atRestNanos = depth <= recoilTolerance ? timestampNanos : -1;
+        if (depth <= recoilTolerance) {
+            finishCycle(timestampNanos, depth, true);
+        }
+    }
+
+    // Hands left position or tracking restarted: close any cycle in progress. A downstroke
+    // that never released is dropped, as the analyser doesn't count it either
+    public void onInterrupted() {
+        if (phase == Phase.RECOIL) {
+            finishCycle(topNanos, topDepth, false);
+        }
+        phase = Phase.WAITING;
+        topDepth = Float.MAX_VALUE;
+        atRestNanos = -1;
+    }
+
+    // No more frames are coming: close any cycle in progress like onInterrupted(), and report
+    // the time since the last cycle as a pause if it is long enough
+    public void onSessionEnd(long timestampNanos) {
+        onInterrupted();
+        if (lastEndNanos >= 0 && timestampNanos - lastEndNanos > pauseThresholdNanos && listener != null) {
+            listener.onPause(lastEndNanos, timestampNanos);
+        }
+        lastEndNanos = timestampNanos;
+    }
+
+    private void finishCycle(long endNanos, float residualDepth, boolean fullRecoil) {
+        phase = Phase.WAITING;
+        cycle.set(cycles++, startNanos, bottomNanos, endNanos, peakDepth, residualDepth, fullRecoil);
+        lastEndNanos = endNanos;
+        if (listener != null) {
+            listener.onCycle(cycle);
+        }
+    }
+
+    public int getCycleCount() {
+        return cycles;
+    }
+
+    public void reset() {
+        phase = Phase.WAITING;
+        topDepth = Float.MAX_VALUE;
+        atRestNanos = -1;
+        cycles = 0;
+        lastEndNanos = -1;
+    }
+}
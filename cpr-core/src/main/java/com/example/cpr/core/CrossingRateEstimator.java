@@ -0,0 +1,55 @@
+package com.example.cpr.core;
+
+// Rate from the timestamps of the most recent completed compressions.
+public class CrossingRateEstimator implements RateEstimator {
+    private static final int DEFAULT_WINDOW_SIZE = 10;
+
+    // Ring buffer of the most recent compression times, oldest at head
+    private final long[] timestamps;
+    private int head = 0;
+    private int count = 0;
+
+    public CrossingRateEstimator() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public CrossingRateEstimator(int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("Window must hold at least two compressions");
+        }
+        timestamps = new long[windowSize];
+    }
+
+    @Override
+    public void onSample(long timestampNanos, float wristY) {
+    }
+
+    @Override
+    public void onCompression(long timestampNanos) {
+        if (count < timestamps.length) {
+            timestamps[(head + count) % timestamps.length] = timestampNanos;
+            count++;
+        } else {
+            // Window is full, overwrite the oldest entry
+            timestamps[head] = timestampNanos;
+            head = (head + 1) % timestamps.length;
+        }
+    }
+
+    @Override
+    public float getRate() {
+        if (count < 2) {
+            return 0f;
+        }
+
+        long newest = timestamps[(head + count - 1) % timestamps.length];
+        long timeWindow = newest - timestamps[head];
+        return (float) ((count - 1) * 60e9 / timeWindow);
+    }
+
+    @Override
+    public void reset() {
+        head = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.cpr.core;
+
+// Decides which frames go to the pose detector. The detector runs on every Nth frame, and
+// sooner whenever the tracker's predicted wrist position becomes too uncertain.
+public class DetectionScheduler {
+    private final int detectEveryNth;
+    private final double maxWristVariance;
+    private int framesSinceDetection = 0;
+
+    public DetectionScheduler(int detectEveryNth, float maxWristStdDev) {
+        if (detectEveryNth < 1) {
+            throw new IllegalArgumentException("Detection interval must be at least 1");
+        }
+        this.detectEveryNth = detectEveryNth;
+        this.maxWristVariance = (double) maxWristStdDev * maxWristStdDev;
+    }
+
+    public boolean shouldDetect(LandmarkTracker tracker, long timestampNanos) {
+        if (++framesSinceDetection >= detectEveryNth
+                || tracker.wristVarianceAt(timestampNanos) > maxWristVariance) {
+            framesSinceDetection = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public int getDetectEveryNth() {
+        return detectEveryNth;
+    }
+
+    public void reset() {
+        framesSinceDetection = 0;
+    }
+}
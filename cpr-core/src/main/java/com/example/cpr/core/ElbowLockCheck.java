@@ -0,0 +1,51 @@
+package com.example.cpr.core;
+
+// Arms should stay straight, pushing from the shoulders. Measures the shoulder-elbow-wrist
+// angle on each side in true image proportions and flags the more bent arm below the minimum.
+// Sides missing a landmark are skipped.
+public class ElbowLockCheck implements FrameAnalyser {
+    private final float minAngleDegrees;
+
+    public ElbowLockCheck(float minAngleDegrees) {
+        this.minAngleDegrees = minAngleDegrees;
+    }
+
+    @Override
+    public void analyse(LandmarkFrame frame, TechniqueReport report) {
+        if (!report.getMetrics().areHandsInPosition()) {
+            return;
+        }
+        float left = elbowAngle(frame, LandmarkFrame.LEFT_SHOULDER, LandmarkFrame.LEFT_ELBOW,
+                LandmarkFrame.LEFT_WRIST);
+        float right = elbowAngle(frame, LandmarkFrame.RIGHT_SHOULDER, LandmarkFrame.RIGHT_ELBOW,
+                LandmarkFrame.RIGHT_WRIST);
+        // NaN sides drop out of the minimum
+        float angle = Float.isNaN(left) ? right : Float.isNaN(right) ? left : Math.min(left, right);
+        if (Float.isNaN(angle)) {
+            return;
+        }
+        report.setElbowAngleDegrees(angle);
+        if (angle < minAngleDegrees) {
+            report.addFault(TechniqueReport.FAULT_ELBOWS_BENT);
+        }
+    }
+
+    // Angle at the elbow in degrees, 180 for a straight arm, or NaN if a landmark is missing
+    static float elbowAngle(LandmarkFrame frame, int shoulder, int elbow, int wrist) {
+        if (!frame.isPresent(shoulder) || !frame.isPresent(elbow) || !frame.isPresent(wrist)) {
+            return Float.NaN;
+        }
+        float aspect = frame.getAspectRatio();
+        float upperX = (frame.getX(shoulder) - frame.getX(elbow)) * aspect;
+        float upperY = frame.getY(shoulder) - frame.getY(elbow);
+        float lowerX = (frame.getX(wrist) - frame.getX(elbow)) * aspect;
+        float lowerY = frame.getY(wrist) - frame.getY(elbow);
+        double cross = upperX * lowerY - upperY * lowerX;
+        double dot = upperX * lowerX + upperY * lowerY;
+        return (float) Math.toDegrees(Math.abs(Math.atan2(cross, dot)));
+    }
+
+    @Override
+    public void reset() {
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.cpr.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+// Turns a FlightRecorder dump back into one line of text per event, with times in
+// milliseconds relative to the first record.
+//
+//     java -cp cpr-core.jar com.example.cpr.core.FlightRecordDecoder flight.bin
+public final class FlightRecordDecoder {
+    private FlightRecordDecoder() {
+    }
+
+    public static void decode(InputStream stream, Appendable out) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != FlightRecorder.MAGIC) {
+            throw new IOException("Not a flight recorder dump");
+        }
+        int version = in.readInt();
+        if (version != FlightRecorder.VERSION) {
+            throw new IOException("Unsupported flight recorder version " + version);
+        }
+
+        int count = in.readInt();
+        long firstTimestamp = 0;
+        for (int i = 0; i < count; i++) {
+            long timestamp = in.readLong();
+            long typeAndCode = in.readLong();
+            long values = in.readLong();
+            if (i == 0) {
+                firstTimestamp = timestamp;
+            }
+            int type = (int) (typeAndCode >>> 32);
+            int code = (int) typeAndCode;
+            float a = Float.intBitsToFloat((int) (values >>> 32));
+            float b = Float.intBitsToFloat((int) values);
+
+            out.append(String.format(Locale.US, "%10.1f ms  ", (timestamp - firstTimestamp) / 1e6));
+            out.append(describe(type, code, a, b)).append('\n');
+        }
+    }
+
+    static String describe(int type, int code, float a, float b) {
+        switch (type) {
+            case FlightRecorder.EVENT_FRAME:
+                return String.format(Locale.US, "frame       separation=%.3f wristY=%.3f handsInPosition=%b",
+                        a, b, code != 0);
+            case FlightRecorder.EVENT_LANDMARKS_MISSING:
+                return String.format(Locale.US, "missing     presentMask=0x%02x", code);
+            case FlightRecorder.EVENT_COMPRESSION_DOWN:
+                return String.format(Locale.US, "down        depth=%.3f wristY=%.3f", a, b);
+            case FlightRecorder.EVENT_COMPRESSION:
+                return String.format(Locale.US, "compression depth=%.3f rate=%.1f", a, b);
+            case FlightRecorder.EVENT_RESET:
+                return "reset       reason=" + describeResetReason(code);
+            case FlightRecorder.EVENT_RATE_COLLAPSE:
+                return String.format(Locale.US, "ANOMALY     rate collapsed %.1f -> %.1f", a, b);
+            default:
+                return String.format(Locale.US, "unknown     type=%d code=%d a=%f b=%f", type, code, a, b);
+        }
+    }
+
+    private static String describeResetReason(int reason) {
+        switch (reason) {
+            case FlightRecorder.RESET_HANDS_APART:
+                return "hands apart";
+            case FlightRecorder.RESET_EXPLICIT:
+                return "explicit";
+            default:
+                return Integer.toString(reason);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: FlightRecordDecoder <dump file>");
+            System.exit(2);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(args[0]))) {
+            PrintStream out = System.out;
+            decode(in, out);
+            out.flush();
+        }
+    }
+}
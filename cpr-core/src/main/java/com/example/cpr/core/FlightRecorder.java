@@ -0,0 +1,117 @@
+package com.example.cpr.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size ring of binary analyser events for post-mortem debugging. Recording is a handful
+// of array stores from the single analysis thread; snapshots can be taken from any thread and
+// drop whatever the producer may have overwritten while they were copied.
+public final class FlightRecorder {
+    public static final int MAGIC = 0x43505246; // "CPRF"
+    public static final int VERSION = 1;
+
+    // Event types
+    public static final int EVENT_FRAME = 1;             // code: hands in position, a: separation, b: wrist y
+    public static final int EVENT_LANDMARKS_MISSING = 2; // code: mask of present landmarks
+    public static final int EVENT_COMPRESSION_DOWN = 3;  // a: depth, b: wrist y
+    public static final int EVENT_COMPRESSION = 4;       // a: depth, b: rate
+    public static final int EVENT_RESET = 5;             // code: reason
+    public static final int EVENT_RATE_COLLAPSE = 6;     // a: previous rate, b: rate
+
+    // Reset reasons
+    public static final int RESET_HANDS_APART = 1;
+    public static final int RESET_EXPLICIT = 2;
+
+    public interface AnomalyListener {
+        // Called on the recording thread, keep it short
+        void onAnomaly(int type, long timestampNanos);
+    }
+
+    // Each record is three longs: timestamp, type and code, then two floats
+    static final int RECORD_LONGS = 3;
+
+    // Slots are stored with lazySet and loaded with get, so a snapshot's recheck of published
+    // cannot move above its copy; plain loads would need a load fence, which Java 8 lacks
+    private final AtomicLongArray ring;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    // Only touched by the producer
+    private long head;
+    private volatile AnomalyListener anomalyListener;
+
+    // capacity is rounded up to a power of two
+    public FlightRecorder(int capacity) {
+        int records = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        ring = new AtomicLongArray(records * RECORD_LONGS);
+        mask = records - 1;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public void setAnomalyListener(AnomalyListener listener) {
+        anomalyListener = listener;
+    }
+
+    public void record(int type, int code, long timestampNanos, float a, float b) {
+        int offset = (int) (head & mask) * RECORD_LONGS;
+        ring.lazySet(offset, timestampNanos);
+        ring.lazySet(offset + 1, ((long) type << 32) | (code & 0xFFFFFFFFL));
+        ring.lazySet(offset + 2, ((long) Float.floatToRawIntBits(a) << 32)
+                | (Float.floatToRawIntBits(b) & 0xFFFFFFFFL));
+        head++;
+        published.lazySet(head);
+    }
+
+    public void recordAnomaly(int type, int code, long timestampNanos, float a, float b) {
+        record(type, code, timestampNanos, a, b);
+        AnomalyListener listener = anomalyListener;
+        if (listener != null) {
+            listener.onAnomaly(type, timestampNanos);
+        }
+    }
+
+    // Copies the surviving records, oldest first. Returns the number of records copied
+    public int snapshot(long[] out) {
+        int capacity = mask + 1;
+        long end = published.get();
+        long start = Math.max(0, end - capacity);
+        for (long i = start; i < end; i++) {
+            int from = (int) (i & mask) * RECORD_LONGS;
+            int to = (int) (i - start) * RECORD_LONGS;
+            for (int j = 0; j < RECORD_LONGS; j++) {
+                out[to + j] = ring.get(from + j);
+            }
+        }
+
+        // Records the producer lapped during the copy may be torn, drop them along with the
+        // slot it may be writing now. Any slot value read above from a later lap was stored
+        // after that lap's published count, so this read sees at least that count
+        long overwritten = published.get() - capacity + 1;
+        int dropped = (int) Math.max(0, Math.min(end - start, overwritten - start));
+        if (dropped > 0) {
+            System.arraycopy(out, dropped * RECORD_LONGS, out, 0,
+                    (int) (end - start - dropped) * RECORD_LONGS);
+        }
+        return (int) (end - start - dropped);
+    }
+
+    // Writes a header and the surviving records; see FlightRecordDecoder
+    public void writeTo(OutputStream stream) throws IOException {
+        long[] records = new long[ring.length()];
+        int count = snapshot(records);
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(count);
+        for (int i = 0; i < count * RECORD_LONGS; i++) {
+            out.writeLong(records[i]);
+        }
+        out.flush();
+    }
+}
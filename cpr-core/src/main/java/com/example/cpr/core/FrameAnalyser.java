@@ -0,0 +1,9 @@
+package com.example.cpr.core;
+
+// One technique check in an AnalyserChain. Runs on the analysis thread for every frame and
+// must not allocate; it reads the shared frame and adds to the report.
+public interface FrameAnalyser {
+    void analyse(LandmarkFrame frame, TechniqueReport report);
+
+    void reset();
+}
@@ -0,0 +1,62 @@
+package com.example.cpr.core;
+
+// Compact, reusable per-frame snapshot of the landmarks the analysers use. Coordinates are
+// normalised to the upright image (0..1 on each axis). The timestamp is the capture time in
+// monotonic nanoseconds; analysers never read a clock, so replays can run faster than real time.
+// The aspect ratio of the upright image lets analysers measure angles in true proportions.
+public final class LandmarkFrame {
+    public static final int LEFT_SHOULDER = 0;
+    public static final int RIGHT_SHOULDER = 1;
+    public static final int LEFT_ELBOW = 2;
+    public static final int RIGHT_ELBOW = 3;
+    public static final int LEFT_WRIST = 4;
+    public static final int RIGHT_WRIST = 5;
+    public static final int LANDMARK_COUNT = 6;
+
+    private final float[] x = new float[LANDMARK_COUNT];
+    private final float[] y = new float[LANDMARK_COUNT];
+    private final float[] likelihood = new float[LANDMARK_COUNT];
+    private int presentMask = 0;
+    private long timestampNanos = 0;
+    private float aspectRatio = 1f;
+
+    public void clear(long timestampNanos) {
+        this.timestampNanos = timestampNanos;
+        presentMask = 0;
+    }
+
+    public void set(int landmark, float x, float y, float likelihood) {
+        this.x[landmark] = x;
+        this.y[landmark] = y;
+        this.likelihood[landmark] = likelihood;
+        presentMask |= 1 << landmark;
+    }
+
+    public void copyFrom(LandmarkFrame other) {
+        System.arraycopy(other.x, 0, x, 0, LANDMARK_COUNT);
+        System.arraycopy(other.y, 0, y, 0, LANDMARK_COUNT);
+        System.arraycopy(other.likelihood, 0, likelihood, 0, LANDMARK_COUNT);
+        presentMask = other.presentMask;
+        timestampNanos = other.timestampNanos;
+        aspectRatio = other.aspectRatio;
+    }
+
+    // Width over height of the upright image; kept across clear() as it rarely changes
+    public void setAspectRatio(float aspectRatio) {
+        this.aspectRatio = aspectRatio;
+    }
+
+    public boolean isPresent(int landmark) {
+        return (presentMask & (1 << landmark)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return presentMask == 0;
+    }
+
+    public float getX(int landmark) { return x[landmark]; }
+    public float getY(int landmark) { return y[landmark]; }
+    public float getLikelihood(int landmark) { return likelihood[landmark]; }
+    public long getTimestampNanos() { return timestampNanos; }
+    public float getAspectRatio() { return aspectRatio; }
+}
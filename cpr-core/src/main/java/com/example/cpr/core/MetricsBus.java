@@ -0,0 +1,254 @@
+package com.example.cpr.core;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Publish/subscribe stream of per-frame metrics and per-compression events. The analysis
+// thread is the only publisher; each subscriber gets its own bounded queue of preallocated
+// events and is called on the executor it chose, so publishing is a few copies and atomic
+// operations however many consumers there are.
+//
+// Overflow policies for a subscriber that falls behind:
+// LATEST keeps only the newest event (a lock-free triple buffer), for displays and cues.
+// DROP keeps the oldest capacity events and counts the rest as dropped.
+// BLOCK makes the publisher wait for space, but never longer than the bus's block timeout,
+// after which the event is dropped, so a stuck consumer cannot stall analysis.
+//
+// An executor that runs tasks directly delivers on the publishing thread.
+public final class MetricsBus implements CompressionSegmenter.Listener {
+    public enum Overflow { LATEST, DROP, BLOCK }
+
+    public interface Subscriber {
+        // event is reused once this returns
+        void onEvent(MetricsEvent event);
+    }
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+
+    private final long blockTimeoutNanos;
+    private final Object lock = new Object();
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+    // Publisher thread only
+    private final MetricsEvent staging = new MetricsEvent();
+
+    public MetricsBus(long blockTimeoutNanos) {
+        this.blockTimeoutNanos = blockTimeoutNanos;
+    }
+
+    // typeMask is a combination of MetricsEvent types; capacity is rounded up to a power of
+    // two and ignored for LATEST
+    public Subscription subscribe(int typeMask, Subscriber subscriber, Executor executor,
+                                  Overflow overflow, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        Subscription subscription = new Subscription(this, typeMask, subscriber, executor, overflow, capacity);
+        synchronized (lock) {
+            Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            updated[updated.length - 1] = subscription;
+            subscriptions = updated;
+        }
+        return subscription;
+    }
+
+    private void remove(Subscription subscription) {
+        synchronized (lock) {
+            Subscription[] current = subscriptions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == subscription) {
+                    Subscription[] updated = new Subscription[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    subscriptions = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Publisher thread only; report is copied
+    public void publishFrame(long timestampNanos, TechniqueReport report, long captureNanos) {
+        staging.setFrame(timestampNanos, report, captureNanos);
+        publish();
+    }
+
+    @Override
+    public void onCycle(CompressionCycle cycle) {
+        staging.setCycle(cycle);
+        publish();
+    }
+
+    @Override
+    public void onPause(long startNanos, long endNanos) {
+        staging.setPause(startNanos, endNanos);
+        publish();
+    }
+
+    private void publish() {
+        Subscription[] current = subscriptions;
+        for (Subscription subscription : current) {
+            if ((subscription.typeMask & staging.getType()) != 0) {
+                subscription.offer(staging, blockTimeoutNanos);
+            }
+        }
+    }
+
+    public static final class Subscription implements Runnable {
+        // Triple buffer index of the newest event, with DIRTY set until the consumer takes it
+        private static final int DIRTY = 0x4;
+        private static final int INDEX = 0x3;
+
+        private final MetricsBus bus;
+        private final int typeMask;
+        private final Subscriber subscriber;
+        private final Executor executor;
+        private final Overflow overflow;
+        private final MetricsEvent[] slots;
+        private final int mask;
+
+        // DROP and BLOCK: single-producer single-consumer ring
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        // LATEST: the publisher owns back, the consumer owns front, and ready is shared
+        private final AtomicInteger ready = new AtomicInteger(2);
+        private int back = 0;
+        private int front = 1;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private Subscription(MetricsBus bus, int typeMask, Subscriber subscriber, Executor executor,
+                             Overflow overflow, int capacity) {
+            this.bus = bus;
+            this.typeMask = typeMask;
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.overflow = overflow;
+            int size = overflow == Overflow.LATEST ? 3
+                    : Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            slots = new MetricsEvent[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = new MetricsEvent();
+            }
+            mask = size - 1;
+        }
+
+        private void offer(MetricsEvent event, long blockTimeoutNanos) {
+            if (cancelled) {
+                return;
+            }
+            if (overflow == Overflow.LATEST) {
+                slots[back].copyFrom(event);
+                int previous = ready.getAndSet(back | DIRTY);
+                if ((previous & DIRTY) != 0) {
+                    // The consumer never saw it
+                    dropped.incrementAndGet();
+                }
+                back = previous & INDEX;
+            } else {
+                long t = tail.get();
+                if (t - head.get() == slots.length && !awaitSpace(t, blockTimeoutNanos)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                slots[(int) (t & mask)].copyFrom(event);
+                tail.lazySet(t + 1);
+            }
+            schedule();
+        }
+
+        private boolean awaitSpace(long t, long blockTimeoutNanos) {
+            if (overflow != Overflow.BLOCK) {
+                return false;
+            }
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (t - head.get() == slots.length) {
+                if (cancelled || System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+            return true;
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The delivery thread has shut down
+                cancel();
+            }
+        }
+
+        // Delivery; runs on the subscriber's executor
+        @Override
+        public void run() {
+            while (true) {
+                drain();
+                scheduled.set(false);
+                // An event published after the drain but before the flag cleared saw the
+                // flag still set, so pick it up here
+                if (!hasPending() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            if (overflow == Overflow.LATEST) {
+                while (!cancelled && (ready.get() & DIRTY) != 0) {
+                    front = ready.getAndSet(front) & INDEX;
+                    deliver(slots[front]);
+                }
+                return;
+            }
+            long h = head.get();
+            long t = tail.get();
+            while (!cancelled && h < t) {
+                deliver(slots[(int) (h & mask)]);
+                head.lazySet(++h);
+                if (h == t) {
+                    t = tail.get();
+                }
+            }
+        }
+
+        private void deliver(MetricsEvent event) {
+            subscriber.onEvent(event);
+            delivered.incrementAndGet();
+        }
+
+        private boolean hasPending() {
+            if (cancelled) {
+                return false;
+            }
+            return overflow == Overflow.LATEST ? (ready.get() & DIRTY) != 0 : head.get() < tail.get();
+        }
+
+        // Stops delivery; an event already being delivered completes
+        public void cancel() {
+            cancelled = true;
+            bus.remove(this);
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        // Events this subscriber never saw: overwritten for LATEST, rejected or timed out otherwise
+        public long getDropped() {
+            return dropped.get();
+        }
+    }
+}
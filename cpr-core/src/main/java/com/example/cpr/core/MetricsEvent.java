@@ -0,0 +1,64 @@
+package com.example.cpr.core;
+
+// One item on the MetricsBus: the metrics for an analysed frame, a completed compression cycle
+// or a hands-off pause. Fixed size and preallocated in every subscriber's queue, so only the
+// fields for its type are meaningful, and it is only valid during onEvent().
+public final class MetricsEvent {
+    public static final int FRAME = 1;
+    public static final int CYCLE = 1 << 1;
+    public static final int PAUSE = 1 << 2;
+
+    private int type;
+    private long timestampNanos;
+    private long captureNanos;
+    private final CPRMetrics metrics = new CPRMetrics();
+    private int faults;
+    private final CompressionCycle cycle = new CompressionCycle();
+    private long pauseStartNanos;
+
+    void setFrame(long timestampNanos, TechniqueReport report, long captureNanos) {
+        type = FRAME;
+        this.timestampNanos = timestampNanos;
+        this.captureNanos = captureNanos;
+        CPRMetrics source = report.getMetrics();
+        metrics.set(source.getDepth(), source.getRate(), report.isGoodTechnique(),
+                source.areHandsInPosition());
+        faults = report.getFaults();
+    }
+
+    void setCycle(CompressionCycle source) {
+        type = CYCLE;
+        timestampNanos = source.getEndNanos();
+        cycle.copyFrom(source);
+    }
+
+    void setPause(long startNanos, long endNanos) {
+        type = PAUSE;
+        timestampNanos = endNanos;
+        pauseStartNanos = startNanos;
+    }
+
+    void copyFrom(MetricsEvent other) {
+        type = other.type;
+        timestampNanos = other.timestampNanos;
+        captureNanos = other.captureNanos;
+        metrics.set(other.metrics.getDepth(), other.metrics.getRate(), other.metrics.isGoodTechnique(),
+                other.metrics.areHandsInPosition());
+        faults = other.faults;
+        cycle.copyFrom(other.cycle);
+        pauseStartNanos = other.pauseStartNanos;
+    }
+
+    public int getType() { return type; }
+    // Frame capture time, cycle end or pause end, in the analysis timebase
+    public long getTimestampNanos() { return timestampNanos; }
+    // FRAME: System.nanoTime() at capture, for latency measurement
+    public long getCaptureNanos() { return captureNanos; }
+    // FRAME: good technique here includes the posture checks
+    public CPRMetrics getMetrics() { return metrics; }
+    // FRAME: TechniqueReport fault bits
+    public int getFaults() { return faults; }
+    public CompressionCycle getCycle() { return cycle; }
+    public long getPauseStartNanos() { return pauseStartNanos; }
+    public long getPauseEndNanos() { return timestampNanos; }
+}
@@ -0,0 +1,87 @@
+package com.example.cpr.core;
+
+// Formats the on-screen metrics into a caller-supplied char[] without allocating. Values are
+// passed pre-rounded so callers can skip redrawing when nothing visible has changed.
+public final class MetricsFormatter {
+    public static final int MAX_LENGTH = 96;
+
+    private static final char[] DEPTH_LABEL = "Compression Depth: ".toCharArray();
+    private static final char[] RATE_LABEL = "\nRate: ".toCharArray();
+    private static final char[] RATE_UNITS = " compressions/min".toCharArray();
+    private static final char[] STATUS_LABEL = "\nStatus: ".toCharArray();
+    private static final char[] GOOD = "Good".toCharArray();
+    private static final char[] ADJUST = "Adjust Technique".toCharArray();
+    private static final char[] LOCK_ELBOWS = "Lock Your Elbows".toCharArray();
+    private static final char[] SHOULDERS_OVER_HANDS = "Shoulders Over Hands".toCharArray();
+
+    private MetricsFormatter() {
+    }
+
+    // Depth is shown to two decimal places
+    public static int depthHundredths(float depth) {
+        return Math.round(depth * 100f);
+    }
+
+    // Rate is shown to one decimal place
+    public static int rateTenths(float rate) {
+        return Math.round(rate * 10f);
+    }
+
+    // Returns the number of chars written; out must hold at least MAX_LENGTH
+    public static int format(int depthHundredths, int rateTenths, boolean goodTechnique, char[] out) {
+        return format(depthHundredths, rateTenths, goodTechnique, 0, out);
+    }
+
+    // As above, naming the posture fault in the status when there is one. faults holds
+    // TechniqueReport fault bits
+    public static int format(int depthHundredths, int rateTenths, boolean goodTechnique, int faults,
+                             char[] out) {
+        int length = append(DEPTH_LABEL, out, 0);
+        length = appendFixed(depthHundredths, 2, out, length);
+        length = append(RATE_LABEL, out, length);
+        length = appendFixed(rateTenths, 1, out, length);
+        length = append(RATE_UNITS, out, length);
+        length = append(STATUS_LABEL, out, length);
+        return append(goodTechnique ? GOOD : status(faults), out, length);
+    }
+
+    private static char[] status(int faults) {
+        if ((faults & TechniqueReport.FAULT_ELBOWS_BENT) != 0) {
+            return LOCK_ELBOWS;
+        }
+        if ((faults & TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS) != 0) {
+            return SHOULDERS_OVER_HANDS;
+        }
+        return ADJUST;
+    }
+
+    private static int append(char[] text, char[] out, int offset) {
+        System.arraycopy(text, 0, out, offset, text.length);
+        return offset + text.length;
+    }
+
+    private static int appendFixed(int scaled, int decimals, char[] out, int offset) {
+        if (scaled < 0) {
+            out[offset++] = '-';
+        }
+        // Work in long so Integer.MIN_VALUE negates safely
+        long magnitude = Math.abs((long) scaled);
+
+        int digits = 1;
+        for (long remaining = magnitude / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, decimals + 1);
+
+        int end = offset + digits + 1;
+        int position = end;
+        for (int i = 0; i < digits; i++) {
+            if (i == decimals) {
+                out[--position] = '.';
+            }
+            out[--position] = (char) ('0' + magnitude % 10);
+            magnitude /= 10;
+        }
+        return end;
+    }
+}
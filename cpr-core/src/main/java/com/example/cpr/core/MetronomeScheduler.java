@@ -0,0 +1,122 @@
+package com.example.cpr.core;
+
+import java.util.Arrays;
+
+// Places metronome clicks by output frame count. Beat k of a tempo starts at frame
+// round(start + k * sampleRate * 60 / bpm), computed from the beat index rather than by adding
+// up rounded intervals, so the beat never drifts however the stream is split into blocks.
+// The audio clock is the only time source, so a late writer cannot shift a click.
+//
+// Not thread safe; owned by the thread that renders audio.
+public class MetronomeScheduler {
+    public enum Cue {
+        ON_TARGET, SPEED_UP, SLOW_DOWN;
+
+        // No measured rate yet counts as on target
+        public static Cue forRate(float rate, float minRate, float maxRate) {
+            if (rate <= 0) {
+                return ON_TARGET;
+            }
+            if (rate < minRate) {
+                return SPEED_UP;
+            }
+            return rate > maxRate ? SLOW_DOWN : ON_TARGET;
+        }
+    }
+
+    private final int sampleRate;
+
+    private float bpm;
+    private float pendingBpm;
+    private short[] click;
+    private short[] pendingClick;
+
+    // Frame the current tempo started at and how many of its beats have been started
+    private double tempoStartFrame = 0;
+    private long beatsAtTempo = 0;
+    private long nextBeatFrame = 0;
+    private long framePosition = 0;
+
+    // The click in progress and how much of it has been written
+    private short[] playing;
+    private int playingOffset;
+
+    public MetronomeScheduler(int sampleRate, float bpm, short[] click) {
+        if (sampleRate <= 0 || bpm <= 0) {
+            throw new IllegalArgumentException("Sample rate and tempo must be positive");
+        }
+        this.sampleRate = sampleRate;
+        this.bpm = bpm;
+        this.pendingBpm = bpm;
+        this.click = click;
+        this.pendingClick = click;
+    }
+
+    // Takes effect from the next beat
+    public void setBpm(float bpm) {
+        if (bpm <= 0) {
+            throw new IllegalArgumentException("Tempo must be positive");
+        }
+        pendingBpm = bpm;
+    }
+
+    // Takes effect from the next beat; the array is played as is and must not be modified
+    public void setClick(short[] click) {
+        pendingClick = click;
+    }
+
+    // Fills length frames of buffer from offset with the clicks due in them
+    public void render(short[] buffer, int offset, int length) {
+        int written = 0;
+        while (written < length) {
+            // Frames until the next beat starts, capped at the end of this block
+            long untilBeat = nextBeatFrame - (framePosition + written);
+            int span = (int) Math.min(length - written, untilBeat);
+            writeSpan(buffer, offset + written, span);
+            written += span;
+            if (written < length) {
+                startBeat();
+            }
+        }
+        framePosition += length;
+    }
+
+    private void writeSpan(short[] buffer, int offset, int span) {
+        int copied = 0;
+        if (playing != null) {
+            copied = Math.min(span, playing.length - playingOffset);
+            System.arraycopy(playing, playingOffset, buffer, offset, copied);
+            playingOffset += copied;
+            if (playingOffset == playing.length) {
+                playing = null;
+            }
+        }
+        Arrays.fill(buffer, offset + copied, offset + span, (short) 0);
+    }
+
+    private void startBeat() {
+        if (pendingBpm != bpm) {
+            bpm = pendingBpm;
+            tempoStartFrame = nextBeatFrame;
+            beatsAtTempo = 0;
+        }
+        click = pendingClick;
+        // A new beat cuts off a click still ringing from a very fast tempo
+        playing = click.length > 0 ? click : null;
+        playingOffset = 0;
+        beatsAtTempo++;
+        nextBeatFrame = Math.round(tempoStartFrame + beatsAtTempo * getBeatFrames());
+    }
+
+    public double getBeatFrames() {
+        return sampleRate * 60.0 / bpm;
+    }
+
+    public long getFramePosition() {
+        return framePosition;
+    }
+
+    public long getNextBeatFrame() {
+        return nextBeatFrame;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.cpr.core;
+
+import java.nio.ByteBuffer;
+
+// Cheap pre-filter that keeps pose detection mostly off while nothing is happening in front of
+// the camera. Motion is the mean absolute change of a coarse luma grid between frames, after
+// removing any global brightness shift so auto exposure doesn't count as movement.
+//
+// IDLE runs the detector on every Nth frame only. Significant motion moves straight to
+// ACQUIRING, which detects every frame until a pose is found. ACTIVE hands scheduling back to
+// the caller. Without motion or a pose for idleAfterNanos, the gate returns to IDLE.
+public class MotionGate {
+    public enum State { IDLE, ACQUIRING, ACTIVE }
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final float motionThreshold;
+    private final int idleDetectEveryNth;
+    private final long idleAfterNanos;
+
+    // Luma per cell for this frame and the previous one, swapped every frame
+    private int[] grid;
+    private int[] previousGrid;
+    private boolean hasPreviousGrid = false;
+
+    private State state = State.ACQUIRING;
+    private boolean started = false;
+    private long lastActivityNanos;
+    private int idleFrames = 0;
+
+    public MotionGate(int gridWidth, int gridHeight, float motionThreshold,
+                      int idleDetectEveryNth, long idleAfterNanos) {
+        if (gridWidth < 1 || gridHeight < 1 || idleDetectEveryNth < 1) {
+            throw new IllegalArgumentException("Grid size and idle interval must be at least 1");
+        }
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.motionThreshold = motionThreshold;
+        this.idleDetectEveryNth = idleDetectEveryNth;
+        this.idleAfterNanos = idleAfterNanos;
+        grid = new int[gridWidth * gridHeight];
+        previousGrid = new int[gridWidth * gridHeight];
+    }
+
+    // Samples the Y plane of a width x height frame, which must have a pixel stride of 1, and
+    // returns the motion since the previous frame in luma levels. Reads by absolute index, so
+    // the buffer position is untouched
+    public float measureMotion(ByteBuffer luma, int width, int height, int rowStride) {
+        int[] swap = previousGrid;
+        previousGrid = grid;
+        grid = swap;
+
+        // Average four points around the centre of each cell
+        int cellWidth = width / gridWidth;
+        int cellHeight = height / gridHeight;
+        int dx = Math.max(1, cellWidth / 4);
+        int dy = Math.max(1, cellHeight / 4);
+        for (int row = 0; row < gridHeight; row++) {
+            int top = Math.min(height - 1, row * cellHeight + cellHeight / 2 - dy);
+            int bottom = Math.min(height - 1, top + 2 * dy);
+            for (int column = 0; column < gridWidth; column++) {
+                int left = Math.min(width - 1, column * cellWidth + cellWidth / 2 - dx);
+                int right = Math.min(width - 1, left + 2 * dx);
+                grid[row * gridWidth + column] = (luma.get(top * rowStride + left) & 0xFF)
+                        + (luma.get(top * rowStride + right) & 0xFF)
+                        + (luma.get(bottom * rowStride + left) & 0xFF)
+                        + (luma.get(bottom * rowStride + right) & 0xFF);
+            }
+        }
+
+        if (!hasPreviousGrid) {
+            hasPreviousGrid = true;
+            return 0f;
+        }
+
+        int cells = grid.length;
+        long shift = 0;
+        for (int i = 0; i < cells; i++) {
+            shift += grid[i] - previousGrid[i];
+        }
+        float meanShift = (float) shift / cells;
+        float change = 0f;
+        for (int i = 0; i < cells; i++) {
+            change += Math.abs(grid[i] - previousGrid[i] - meanShift);
+        }
+        // Cells hold the sum of four samples
+        return change / (cells * 4);
+    }
+
+    // Updates the state for a new frame and returns whether the detector should run on it.
+    // In ACTIVE the caller's own scheduling applies and this always returns true
+    public boolean onFrame(long timestampNanos, float motion) {
+        if (!started) {
+            started = true;
+            lastActivityNanos = timestampNanos;
+        }
+
+        if (motion >= motionThreshold) {
+            lastActivityNanos = timestampNanos;
+            if (state == State.IDLE) {
+                state = State.ACQUIRING;
+            }
+        } else if (state != State.IDLE && timestampNanos - lastActivityNanos > idleAfterNanos) {
+            state = State.IDLE;
+            idleFrames = 0;
+        }
+
+        if (state != State.IDLE) {
+            return true;
+        }
+        // Still check occasionally in case someone moved in too slowly to register
+        return idleFrames++ % idleDetectEveryNth == 0;
+    }
+
+    // Reports whether analysis found a pose on a frame the gate let through
+    public void onPoseResult(long timestampNanos, boolean poseFound) {
+        if (poseFound) {
+            lastActivityNanos = timestampNanos;
+            state = State.ACTIVE;
+        } else if (state == State.ACTIVE) {
+            state = State.ACQUIRING;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void reset() {
+        hasPreviousGrid = false;
+        state = State.ACQUIRING;
+        started = false;
+        idleFrames = 0;
+    }
+}
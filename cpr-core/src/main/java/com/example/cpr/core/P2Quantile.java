@@ -0,0 +1,114 @@
+package com.example.cpr.core;
+
+// Streaming estimate of one quantile in constant memory, using the P-squared algorithm of Jain
+// and Chlamtac (1985): five markers whose heights are adjusted with piecewise-parabolic
+// interpolation as samples arrive. Exact until the fifth sample. Not thread safe.
+public final class P2Quantile {
+    private final double p;
+    private final double[] heights = new double[5];
+    private final double[] positions = new double[5];
+    private final double[] desired = new double[5];
+    private final double[] increments = new double[5];
+    private long count = 0;
+
+    // p is the quantile in (0, 1), e.g. 0.9 for the 90th percentile
+    public P2Quantile(double p) {
+        if (p <= 0 || p >= 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        this.p = p;
+        increments[0] = 0;
+        increments[1] = p / 2;
+        increments[2] = p;
+        increments[3] = (1 + p) / 2;
+        increments[4] = 1;
+    }
+
+    public void add(double x) {
+        if (count < 5) {
+            // Insertion sort into the first markers
+            int i = (int) count++;
+            while (i > 0 && heights[i - 1] > x) {
+                heights[i] = heights[i - 1];
+                i--;
+            }
+            heights[i] = x;
+            if (count == 5) {
+                for (int j = 0; j < 5; j++) {
+                    positions[j] = j;
+                    desired[j] = 4 * increments[j];
+                }
+            }
+            return;
+        }
+        count++;
+
+        int cell;
+        if (x < heights[0]) {
+            heights[0] = x;
+            cell = 0;
+        } else if (x >= heights[4]) {
+            heights[4] = Math.max(heights[4], x);
+            cell = 3;
+        } else {
+            cell = 0;
+            while (x >= heights[cell + 1]) {
+                cell++;
+            }
+        }
+        for (int i = cell + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desired[i] += increments[i];
+        }
+
+        for (int i = 1; i <= 3; i++) {
+            double offset = desired[i] - positions[i];
+            if ((offset >= 1 && positions[i + 1] - positions[i] > 1)
+                    || (offset <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int step = offset > 0 ? 1 : -1;
+                double candidate = parabolic(i, step);
+                if (heights[i - 1] < candidate && candidate < heights[i + 1]) {
+                    heights[i] = candidate;
+                } else {
+                    heights[i] = linear(i, step);
+                }
+                positions[i] += step;
+            }
+        }
+    }
+
+    private double parabolic(int i, int step) {
+        return heights[i] + step / (positions[i + 1] - positions[i - 1])
+                * ((positions[i] - positions[i - 1] + step) * (heights[i + 1] - heights[i])
+                / (positions[i + 1] - positions[i])
+                + (positions[i + 1] - positions[i] - step) * (heights[i] - heights[i - 1])
+                / (positions[i] - positions[i - 1]));
+    }
+
+    private double linear(int i, int step) {
+        return heights[i] + step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+    }
+
+    // NaN before the first sample
+    public double getQuantile() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (count < 5) {
+            // Nearest rank over the sorted samples so far
+            int rank = (int) Math.ceil(p * count) - 1;
+            return heights[Math.max(0, rank)];
+        }
+        return heights[2];
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.cpr.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+// Replays annotated traces under many threshold combinations in parallel and ranks the
+// combinations by how closely their compression counts match the annotations.
+public final class ParameterSweep {
+    // Candidates per fork-join leaf; each one replays every trace
+    private static final int LEAF_CANDIDATES = 2;
+
+    private ParameterSweep() {
+    }
+
+    public static final class AnnotatedTrace {
+        private final PoseTrace trace;
+        private final int expectedCompressions;
+
+        public AnnotatedTrace(PoseTrace trace, int expectedCompressions) {
+            this.trace = trace;
+            this.expectedCompressions = expectedCompressions;
+        }
+
+        public PoseTrace getTrace() { return trace; }
+        public int getExpectedCompressions() { return expectedCompressions; }
+    }
+
+    public static final class Result implements Comparable<Result> {
+        private final AnalyserThresholds thresholds;
+        private final int[] compressions;
+        private final int totalError;
+
+        Result(AnalyserThresholds thresholds, int[] compressions, int totalError) {
+            this.thresholds = thresholds;
+            this.compressions = compressions;
+            this.totalError = totalError;
+        }
+
+        public AnalyserThresholds getThresholds() { return thresholds; }
+        // Sum over traces of the absolute difference from the annotated count
+        public int getTotalError() { return totalError; }
+        public int getCompressions(int trace) { return compressions[trace]; }
+
+        @Override
+        public int compareTo(Result other) {
+            return Integer.compare(totalError, other.totalError);
+        }
+    }
+
+    // Every combination of the given values, keeping the default maximum compression distance
+    public static List<AnalyserThresholds> grid(float[] minCompressionDistances,
+                                                long[] minCompressionIntervalsNanos,
+                                                float[] maxHandSeparations) {
+        float maxDistance = AnalyserThresholds.DEFAULT.getMaxCompressionDistance();
+        List<AnalyserThresholds> grid = new ArrayList<>();
+        for (float minDistance : minCompressionDistances) {
+            for (long minInterval : minCompressionIntervalsNanos) {
+                for (float maxSeparation : maxHandSeparations) {
+                    grid.add(new AnalyserThresholds(minDistance, Math.max(minDistance, maxDistance),
+                            minInterval, maxSeparation));
+                }
+            }
+        }
+        return grid;
+    }
+
+    // Results are ranked best first; ties keep candidate order
+    public static List<Result> run(List<AnnotatedTrace> traces, List<AnalyserThresholds> candidates,
+                                   Supplier<? extends RateEstimator> rateEstimators,
+                                   ForkJoinPool pool) {
+        Result[] results = new Result[candidates.size()];
+        pool.invoke(new SweepTask(traces, candidates, rateEstimators, results, 0, results.length));
+
+        List<Result> ranked = new ArrayList<>(results.length);
+        Collections.addAll(ranked, results);
+        Collections.sort(ranked);
+        return ranked;
+    }
+
+    private static final class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<AnnotatedTrace> traces;
+        private final List<AnalyserThresholds> candidates;
+        private final Supplier<? extends RateEstimator> rateEstimators;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        SweepTask(List<AnnotatedTrace> traces, List<AnalyserThresholds> candidates,
+                  Supplier<? extends RateEstimator> rateEstimators, Result[] results,
+                  int from, int to) {
+            this.traces = traces;
+            this.candidates = candidates;
+            this.rateEstimators = rateEstimators;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_CANDIDATES) {
+                for (int i = from; i < to; i++) {
+                    results[i] = evaluate(candidates.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SweepTask(traces, candidates, rateEstimators, results, from, middle),
+                    new SweepTask(traces, candidates, rateEstimators, results, middle, to));
+        }
+
+        private Result evaluate(AnalyserThresholds thresholds) {
+            int[] compressions = new int[traces.size()];
+            int totalError = 0;
+            for (int i = 0; i < compressions.length; i++) {
+                AnnotatedTrace annotated = traces.get(i);
+                compressions[i] = ReplayEngine.replay(annotated.getTrace(), thresholds, rateEstimators)
+                        .getCompressions();
+                totalError += Math.abs(compressions[i] - annotated.getExpectedCompressions());
+            }
+            return new Result(thresholds, compressions, totalError);
+        }
+    }
+}
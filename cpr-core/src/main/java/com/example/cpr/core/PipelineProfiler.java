@@ -0,0 +1,80 @@
+package com.example.cpr.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+// One LatencyHistogram per pipeline stage, from camera capture to the metrics text update.
+public class PipelineProfiler {
+    public enum Stage {
+        // Camera capture to the analyser receiving the frame
+        ACQUIRE,
+        // Building the detector InputImage, including any copy or crop
+        INPUT_IMAGE,
+        // Pose detector call to its result
+        DETECT,
+        // Landmark adaptation, tracking and the analyser chain
+        ANALYSE,
+        // GraphicOverlay.onDraw
+        OVERLAY_DRAW,
+        // Metrics text update on the main thread
+        UI_UPDATE,
+        // Camera capture to the metrics text showing that frame
+        END_TO_END
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+
+    public PipelineProfiler() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    // One line per stage with count and p50/p95/p99/max in milliseconds
+    public void appendSummary(StringBuilder out) {
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            out.append(String.format(Locale.US, "%-12s n=%-6d", stage, histogram.getCount()));
+            for (double percentile : PERCENTILES) {
+                out.append(String.format(Locale.US, " p%.0f=%.1f", percentile,
+                        histogram.getPercentileNanos(percentile) / 1e6));
+            }
+            out.append(String.format(Locale.US, " max=%.1f\n", histogram.getMaxNanos() / 1e6));
+        }
+    }
+
+    // Non-empty buckets of every stage as CSV, for comparing builds offline
+    public void writeCsv(Writer out) throws IOException {
+        out.write("stage,bucket_lower_ns,bucket_upper_ns,count\n");
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+                long count = histogram.getBucketCount(bucket);
+                if (count == 0) {
+                    continue;
+                }
+                long lower = LatencyHistogram.bucketLowerBound(bucket);
+                out.write(stage + "," + lower + "," + (lower + LatencyHistogram.bucketWidth(bucket))
+                        + "," + count + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.cpr.core;
+
+import java.util.Arrays;
+
+// Immutable in-memory landmark trace, safe to replay from many threads at once.
+public final class PoseTrace {
+    private static final int FLOATS_PER_FRAME = LandmarkFrame.LANDMARK_COUNT * 3;
+
+    private final long[] timestamps;
+    private final int[] presentMasks;
+    // x, y, likelihood per landmark, frame after frame
+    private final float[] landmarks;
+    private final int frameCount;
+
+    private PoseTrace(long[] timestamps, int[] presentMasks, float[] landmarks, int frameCount) {
+        this.timestamps = timestamps;
+        this.presentMasks = presentMasks;
+        this.landmarks = landmarks;
+        this.frameCount = frameCount;
+    }
+
+    public static PoseTrace fromSession(SessionReader reader) {
+        Builder builder = new Builder(reader.getFrameCount());
+        LandmarkFrame frame = new LandmarkFrame();
+        for (int i = 0; i < reader.getFrameCount(); i++) {
+            reader.read(i, frame, null);
+            builder.add(frame);
+        }
+        return builder.build();
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public long getDurationNanos() {
+        return frameCount < 2 ? 0 : timestamps[frameCount - 1] - timestamps[0];
+    }
+
+    public void read(int index, LandmarkFrame out) {
+        out.clear(timestamps[index]);
+        int mask = presentMasks[index];
+        int offset = index * FLOATS_PER_FRAME;
+        for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+            if ((mask & (1 << landmark)) != 0) {
+                out.set(landmark, landmarks[offset], landmarks[offset + 1], landmarks[offset + 2]);
+            }
+            offset += 3;
+        }
+    }
+
+    public static final class Builder {
+        private long[] timestamps;
+        private int[] presentMasks;
+        private float[] landmarks;
+        private int frameCount;
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int expectedFrames) {
+            int capacity = Math.max(1, expectedFrames);
+            timestamps = new long[capacity];
+            presentMasks = new int[capacity];
+            landmarks = new float[capacity * FLOATS_PER_FRAME];
+        }
+
+        public Builder add(LandmarkFrame frame) {
+            if (frameCount == timestamps.length) {
+                int capacity = frameCount * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                presentMasks = Arrays.copyOf(presentMasks, capacity);
+                landmarks = Arrays.copyOf(landmarks, capacity * FLOATS_PER_FRAME);
+            }
+            timestamps[frameCount] = frame.getTimestampNanos();
+            int mask = 0;
+            int offset = frameCount * FLOATS_PER_FRAME;
+            for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+                if (frame.isPresent(landmark)) {
+                    mask |= 1 << landmark;
+                    landmarks[offset] = frame.getX(landmark);
+                    landmarks[offset + 1] = frame.getY(landmark);
+                    landmarks[offset + 2] = frame.getLikelihood(landmark);
+                }
+                offset += 3;
+            }
+            presentMasks[frameCount] = mask;
+            frameCount++;
+            return this;
+        }
+
+        public PoseTrace build() {
+            return new PoseTrace(Arrays.copyOf(timestamps, frameCount),
+                    Arrays.copyOf(presentMasks, frameCount),
+                    Arrays.copyOf(landmarks, frameCount * FLOATS_PER_FRAME), frameCount);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.cpr.core;
+
+// Chooses between the accurate and fast pose detectors from rolling detector latency and the
+// device's thermal status. Separate degrade and recover thresholds, a minimum dwell time in
+// each mode and a fresh latency window after every switch keep it from flapping.
+public class QualityGovernor {
+    public enum Mode { ACCURATE, FAST }
+
+    // Same scale as PowerManager.THERMAL_STATUS_*
+    public static final int THERMAL_NONE = 0;
+    public static final int THERMAL_MODERATE = 2;
+    public static final int THERMAL_SEVERE = 3;
+
+    private final long degradeLatencyNanos;
+    private final long recoverLatencyNanos;
+    private final long minDwellNanos;
+    private final long[] latencies;
+
+    private Mode mode = Mode.ACCURATE;
+    private long modeSince = 0;
+    private boolean hasModeSince = false;
+    private int latencyHead = 0;
+    private int latencyCount = 0;
+    private long latencySum = 0;
+    private int thermalStatus = THERMAL_NONE;
+    // What the last switch was based on, kept because the switch clears the latency window
+    private long lastSwitchMeanLatencyNanos = 0;
+    private boolean lastSwitchThermal = false;
+
+    // Degrades when the mean latency over the window exceeds degradeLatencyNanos, and only
+    // recovers once it falls below recoverLatencyNanos
+    public QualityGovernor(long degradeLatencyNanos, long recoverLatencyNanos, long minDwellNanos,
+                           int windowSize) {
+        if (recoverLatencyNanos >= degradeLatencyNanos) {
+            throw new IllegalArgumentException("Recover latency must be below degrade latency");
+        }
+        this.degradeLatencyNanos = degradeLatencyNanos;
+        this.recoverLatencyNanos = recoverLatencyNanos;
+        this.minDwellNanos = minDwellNanos;
+        this.latencies = new long[windowSize];
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getMeanLatencyNanos() {
+        return latencyCount == 0 ? 0 : latencySum / latencyCount;
+    }
+
+    // Mean latency over the window that triggered the last switch, 0 before the first
+    public long getLastSwitchMeanLatencyNanos() {
+        return lastSwitchMeanLatencyNanos;
+    }
+
+    // True when the last switch was forced by severe throttling rather than latency
+    public boolean wasLastSwitchThermal() {
+        return lastSwitchThermal;
+    }
+
+    public void onThermalStatus(int status) {
+        thermalStatus = status;
+    }
+
+    // Returns the mode the next detection should use
+    public Mode onDetection(long latencyNanos, long nowNanos) {
+        if (!hasModeSince) {
+            modeSince = nowNanos;
+            hasModeSince = true;
+        }
+
+        if (latencyCount == latencies.length) {
+            latencySum -= latencies[latencyHead];
+        } else {
+            latencyCount++;
+        }
+        latencies[latencyHead] = latencyNanos;
+        latencySum += latencyNanos;
+        latencyHead = (latencyHead + 1) % latencies.length;
+
+        boolean dwelled = nowNanos - modeSince >= minDwellNanos;
+        boolean windowFull = latencyCount == latencies.length;
+        long meanLatency = latencySum / latencyCount;
+
+        if (mode == Mode.ACCURATE) {
+            // Severe throttling degrades straight away
+            boolean thermal = thermalStatus >= THERMAL_SEVERE;
+            if (thermal || (dwelled && windowFull && meanLatency > degradeLatencyNanos)) {
+                switchTo(Mode.FAST, nowNanos, meanLatency, thermal);
+            }
+        } else if (dwelled && windowFull && thermalStatus < THERMAL_MODERATE
+                && meanLatency < recoverLatencyNanos) {
+            switchTo(Mode.ACCURATE, nowNanos, meanLatency, false);
+        }
+        return mode;
+    }
+
+    private void switchTo(Mode newMode, long nowNanos, long meanLatency, boolean thermal) {
+        mode = newMode;
+        modeSince = nowNanos;
+        lastSwitchMeanLatencyNanos = meanLatency;
+        lastSwitchThermal = thermal;
+        // The other detector has its own latency profile
+        latencyHead = 0;
+        latencyCount = 0;
+        latencySum = 0;
+    }
+}
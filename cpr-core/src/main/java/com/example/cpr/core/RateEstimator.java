@@ -0,0 +1,16 @@
+package com.example.cpr.core;
+
+// Compression rate source for CPRAnalyser. Implementations are fed on the analysis thread and
+// must not allocate per call.
+public interface RateEstimator {
+    // Mean wrist height for every frame where the hands are in position
+    void onSample(long timestampNanos, float wristY);
+
+    // A completed compression detected by the analyser's state machine
+    void onCompression(long timestampNanos);
+
+    // Compressions per minute, or 0 when there is no estimate yet
+    float getRate();
+
+    void reset();
+}
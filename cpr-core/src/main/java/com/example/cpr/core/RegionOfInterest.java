@@ -0,0 +1,130 @@
+package com.example.cpr.core;
+
+// Padded box around the rescuer's shoulders, elbows and wrists so the detector can be given a
+// crop instead of the whole frame. The box is kept in normalised upright coordinates and
+// converted to sensor pixels for cropping, accounting for the image rotation.
+public class RegionOfInterest {
+    private final float padding;
+    private final float minSize;
+    private final float minLikelihood;
+
+    private boolean active = false;
+    private float left;
+    private float top;
+    private float right;
+    private float bottom;
+
+    // padding is a fraction of the landmark box added on every side, minSize the smallest
+    // crop edge as a fraction of the frame
+    public RegionOfInterest(float padding, float minSize, float minLikelihood) {
+        this.padding = padding;
+        this.minSize = minSize;
+        this.minLikelihood = minLikelihood;
+    }
+
+    // Recentres the box on a detection in full-frame coordinates. Returns false, and falls back
+    // to full-frame detection, unless every landmark was found with enough confidence.
+    public boolean update(LandmarkFrame frame) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+            if (!frame.isPresent(landmark) || frame.getLikelihood(landmark) < minLikelihood) {
+                active = false;
+                return false;
+            }
+            minX = Math.min(minX, frame.getX(landmark));
+            minY = Math.min(minY, frame.getY(landmark));
+            maxX = Math.max(maxX, frame.getX(landmark));
+            maxY = Math.max(maxY, frame.getY(landmark));
+        }
+
+        float width = Math.max(maxX - minX, minSize / (1 + 2 * padding));
+        float height = Math.max(maxY - minY, minSize / (1 + 2 * padding));
+        float centreX = (minX + maxX) / 2;
+        float centreY = (minY + maxY) / 2;
+        left = clamp(centreX - width * (0.5f + padding));
+        right = clamp(centreX + width * (0.5f + padding));
+        top = clamp(centreY - height * (0.5f + padding));
+        bottom = clamp(centreY + height * (0.5f + padding));
+        active = true;
+        return true;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void invalidate() {
+        active = false;
+    }
+
+    // Writes the crop as {left, top, width, height} in sensor pixels, aligned to even
+    // coordinates so it stays valid for subsampled chroma. Inactive regions cover the whole image.
+    public void toSensorRect(int rotationDegrees, int sensorWidth, int sensorHeight, int[] out) {
+        if (!active) {
+            out[0] = 0;
+            out[1] = 0;
+            out[2] = sensorWidth & ~1;
+            out[3] = sensorHeight & ~1;
+            return;
+        }
+
+        float x0;
+        float y0;
+        float x1;
+        float y1;
+        switch (rotationDegrees) {
+            case 90:
+                x0 = top; y0 = 1 - right; x1 = bottom; y1 = 1 - left;
+                break;
+            case 180:
+                x0 = 1 - right; y0 = 1 - bottom; x1 = 1 - left; y1 = 1 - top;
+                break;
+            case 270:
+                x0 = 1 - bottom; y0 = left; x1 = 1 - top; y1 = right;
+                break;
+            default:
+                x0 = left; y0 = top; x1 = right; y1 = bottom;
+                break;
+        }
+
+        int pixelLeft = (int) (x0 * sensorWidth) & ~1;
+        int pixelTop = (int) (y0 * sensorHeight) & ~1;
+        int pixelRight = Math.min((int) Math.ceil(x1 * sensorWidth + 1) & ~1, sensorWidth & ~1);
+        int pixelBottom = Math.min((int) Math.ceil(y1 * sensorHeight + 1) & ~1, sensorHeight & ~1);
+        out[0] = pixelLeft;
+        out[1] = pixelTop;
+        out[2] = Math.max(2, pixelRight - pixelLeft);
+        out[3] = Math.max(2, pixelBottom - pixelTop);
+    }
+
+    // Converts a {left, top, width, height} sensor pixel crop into {left, top, width, height}
+    // in normalised upright coordinates, which is what landmarks in the crop are mapped back through
+    public static void sensorRectToUpright(int rotationDegrees, int sensorWidth, int sensorHeight,
+                                           int[] rect, float[] out) {
+        float x0 = (float) rect[0] / sensorWidth;
+        float y0 = (float) rect[1] / sensorHeight;
+        float x1 = (float) (rect[0] + rect[2]) / sensorWidth;
+        float y1 = (float) (rect[1] + rect[3]) / sensorHeight;
+        switch (rotationDegrees) {
+            case 90:
+                out[0] = 1 - y1; out[1] = x0; out[2] = y1 - y0; out[3] = x1 - x0;
+                break;
+            case 180:
+                out[0] = 1 - x1; out[1] = 1 - y1; out[2] = x1 - x0; out[3] = y1 - y0;
+                break;
+            case 270:
+                out[0] = y0; out[1] = 1 - x1; out[2] = y1 - y0; out[3] = x1 - x0;
+                break;
+            default:
+                out[0] = x0; out[1] = y0; out[2] = x1 - x0; out[3] = y1 - y0;
+                break;
+        }
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.cpr.core;
+
+// Calibrates the analysis resolution. Each candidate runs until it has collected enough
+// detected frames with both wrists visible and still; the tuner then picks the smallest
+// candidate whose wrist jitter fits the budget, or the steadiest one if none does. If no
+// candidate could be measured at all there is no choice, and the caller should try again later.
+//
+// Jitter is estimated from the second difference of wrist positions on consecutive
+// detections, which cancels steady motion. For white noise of standard deviation s its
+// variance is 6 s^2, so the estimate is sqrt(mean(d2^2) / 6) in normalised frame units.
+// Real motion such as compressions would swamp it, so a sample only counts once the wrists
+// have stayed within maxStillMotion of where they were for several detections in a row.
+public class ResolutionTuner {
+    // Long enough that a compression turning point cannot pass as still
+    private static final int MIN_STILL_DETECTIONS = 5;
+
+    private final int[][] candidates;
+    private final float jitterBudget;
+    private final int samplesPerCandidate;
+    private final int warmupFrames;
+    private final int maxFramesPerCandidate;
+    private final float maxStillMotion;
+
+    private final float[] jitter;
+    private final long[] meanLatencyNanos;
+
+    private int current = 0;
+    private int chosen = -1;
+    private int frames;
+    private int samples;
+    private double secondDifferenceSquares;
+    private long latencySum;
+    // Last two wrist positions: left x, left y, right x, right y
+    private final float[] previous = new float[4];
+    private final float[] beforePrevious = new float[4];
+    // Where the wrists were when the current still run started
+    private final float[] anchor = new float[4];
+    private int history;
+
+    // candidates are {width, height} pairs ordered from smallest to largest; maxStillMotion is
+    // in normalised frame units
+    public ResolutionTuner(int[][] candidates, float jitterBudget, int samplesPerCandidate,
+                           int warmupFrames, int maxFramesPerCandidate, float maxStillMotion) {
+        if (candidates.length == 0 || samplesPerCandidate < 1) {
+            throw new IllegalArgumentException("Need at least one candidate and one sample");
+        }
+        this.candidates = candidates;
+        this.jitterBudget = jitterBudget;
+        this.samplesPerCandidate = samplesPerCandidate;
+        this.warmupFrames = warmupFrames;
+        this.maxFramesPerCandidate = maxFramesPerCandidate;
+        this.maxStillMotion = maxStillMotion;
+        jitter = new float[candidates.length];
+        meanLatencyNanos = new long[candidates.length];
+    }
+
+    // Returns true when the current candidate is finished and the caller should switch to
+    // getCurrentCandidate(), or apply getChosen() once isDone()
+    public boolean onFrame(LandmarkFrame frame, boolean detected, long detectionLatencyNanos) {
+        if (isDone()) {
+            return false;
+        }
+        // Frames still in flight from the previous resolution arrive just after a switch
+        if (++frames <= warmupFrames) {
+            return false;
+        }
+
+        if (detected) {
+            if (frame.isPresent(LandmarkFrame.LEFT_WRIST) && frame.isPresent(LandmarkFrame.RIGHT_WRIST)) {
+                addSample(frame, detectionLatencyNanos);
+            } else {
+                history = 0;
+            }
+        }
+
+        if (samples >= samplesPerCandidate || frames - warmupFrames >= maxFramesPerCandidate) {
+            finishCandidate();
+            return true;
+        }
+        return false;
+    }
+
+    private void addSample(LandmarkFrame frame, long detectionLatencyNanos) {
+        float leftX = frame.getX(LandmarkFrame.LEFT_WRIST);
+        float leftY = frame.getY(LandmarkFrame.LEFT_WRIST);
+        float rightX = frame.getX(LandmarkFrame.RIGHT_WRIST);
+        float rightY = frame.getY(LandmarkFrame.RIGHT_WRIST);
+
+        if (history == 0 || Math.abs(leftX - anchor[0]) > maxStillMotion
+                || Math.abs(leftY - anchor[1]) > maxStillMotion
+                || Math.abs(rightX - anchor[2]) > maxStillMotion
+                || Math.abs(rightY - anchor[3]) > maxStillMotion) {
+            // Moving, start a new still run from here
+            anchor[0] = leftX;
+            anchor[1] = leftY;
+            anchor[2] = rightX;
+            anchor[3] = rightY;
+            history = 0;
+        }
+
+        if (history >= MIN_STILL_DETECTIONS - 1) {
+            secondDifferenceSquares += square(leftX - 2 * previous[0] + beforePrevious[0])
+                    + square(leftY - 2 * previous[1] + beforePrevious[1])
+                    + square(rightX - 2 * previous[2] + beforePrevious[2])
+                    + square(rightY - 2 * previous[3] + beforePrevious[3]);
+            latencySum += detectionLatencyNanos;
+            samples++;
+        }
+        System.arraycopy(previous, 0, beforePrevious, 0, 4);
+        previous[0] = leftX;
+        previous[1] = leftY;
+        previous[2] = rightX;
+        previous[3] = rightY;
+        history++;
+    }
+
+    private static double square(float value) {
+        return (double) value * value;
+    }
+
+    private void finishCandidate() {
+        // Four coordinates per sample
+        jitter[current] = samples == 0 ? Float.POSITIVE_INFINITY
+                : (float) Math.sqrt(secondDifferenceSquares / (samples * 4) / 6);
+        meanLatencyNanos[current] = samples == 0 ? 0 : latencySum / samples;
+
+        if (jitter[current] <= jitterBudget) {
+            chosen = current;
+        } else if (current == candidates.length - 1) {
+            chosen = steadiest();
+        } else {
+            current++;
+        }
+        frames = 0;
+        samples = 0;
+        secondDifferenceSquares = 0;
+        latencySum = 0;
+        history = 0;
+    }
+
+    private int steadiest() {
+        int best = candidates.length - 1;
+        for (int i = 0; i < candidates.length; i++) {
+            if (jitter[i] < jitter[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public boolean isDone() {
+        return chosen >= 0;
+    }
+
+    // False when done without a single candidate producing samples, e.g. nobody in view
+    public boolean isMeasured() {
+        return isDone() && !Float.isInfinite(jitter[chosen]);
+    }
+
+    public int[] getCurrentCandidate() {
+        return candidates[current];
+    }
+
+    // Null until done, and when nothing could be measured
+    public int[] getChosen() {
+        return isMeasured() ? candidates[chosen] : null;
+    }
+
+    // Results for candidates that have been measured; NaN and 0 for the rest
+    public float getJitter(int candidate) {
+        boolean measured = candidate < current || (isDone() && candidate == current);
+        return measured ? jitter[candidate] : Float.NaN;
+    }
+
+    public long getMeanLatencyNanos(int candidate) {
+        return meanLatencyNanos[candidate];
+    }
+}
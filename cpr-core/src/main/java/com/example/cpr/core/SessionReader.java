@@ -0,0 +1,104 @@
+package com.example.cpr.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Random access to a session written by SessionRecorder. The file is a 64 byte little-endian
+// header (magic, version, header size, record size, frame count, start time in epoch millis)
+// followed by fixed-size frame records, so frame i is at headerSize + i * recordSize.
+public final class SessionReader implements Closeable {
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int headerSize;
+    private final int recordSize;
+    private final int frameCount;
+    private final long startTimeMillis;
+
+    public SessionReader(File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            if (size < SessionRecorder.HEADER_SIZE) {
+                throw new IOException("Session file is too short");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != SessionRecorder.MAGIC) {
+                throw new IOException("Not a CPR session file");
+            }
+            int version = buffer.getInt(4);
+            if (version != SessionRecorder.VERSION) {
+                throw new IOException("Unsupported session version " + version);
+            }
+            headerSize = buffer.getInt(8);
+            recordSize = buffer.getInt(12);
+            if (recordSize < SessionRecorder.RECORD_SIZE || headerSize < SessionRecorder.HEADER_SIZE) {
+                throw new IOException("Corrupt session header");
+            }
+            // A session that was never closed still has its mapped tail, trust the header count
+            long complete = (size - headerSize) / recordSize;
+            frameCount = (int) Math.min(complete, buffer.getLong(SessionRecorder.FRAME_COUNT_OFFSET));
+            startTimeMillis = buffer.getLong(SessionRecorder.START_TIME_OFFSET);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    // Either output may be null. Returns whether the detector ran on this frame, rather than
+    // the landmarks being predicted
+    public boolean read(int index, LandmarkFrame landmarks, CPRMetrics metrics) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + frameCount);
+        }
+        int offset = headerSize + index * recordSize;
+        int presentMask = buffer.getInt(offset + 8);
+        int flags = buffer.getInt(offset + 12);
+
+        if (landmarks != null) {
+            landmarks.clear(buffer.getLong(offset));
+            int landmarkOffset = offset + 16;
+            for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+                if ((presentMask & (1 << landmark)) != 0) {
+                    landmarks.set(landmark, buffer.getFloat(landmarkOffset),
+                            buffer.getFloat(landmarkOffset + 4), buffer.getFloat(landmarkOffset + 8));
+                }
+                landmarkOffset += 12;
+            }
+        }
+
+        if (metrics != null) {
+            int metricsOffset = offset + 16 + LandmarkFrame.LANDMARK_COUNT * 12;
+            metrics.set(buffer.getFloat(metricsOffset), buffer.getFloat(metricsOffset + 4),
+                    (flags & SessionRecorder.FLAG_GOOD_TECHNIQUE) != 0,
+                    (flags & SessionRecorder.FLAG_HANDS_IN_POSITION) != 0);
+        }
+        return (flags & SessionRecorder.FLAG_DETECTED) != 0;
+    }
+
+    public long getTimestampNanos(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + frameCount);
+        }
+        return buffer.getLong(headerSize + index * recordSize);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.cpr.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// Appends one fixed-size record per analysed frame to a session file through memory-mapped
+// segments, so a frame costs a few buffer stores and the OS writes pages back in the
+// background. Must be used from a single thread; see SessionReader for the format.
+public final class SessionRecorder implements Closeable {
+    public static final int MAGIC = 0x43505253; // "CPRS"
+    public static final int VERSION = 1;
+    public static final String FILE_EXTENSION = ".cprs";
+
+    // Header: magic, version, header size, record size, frame count, start time (epoch millis)
+    static final int HEADER_SIZE = 64;
+    static final int FRAME_COUNT_OFFSET = 16;
+    static final int START_TIME_OFFSET = 24;
+
+    // Record: timestamp, present mask, flags, then x, y, likelihood per landmark, depth and rate
+    static final int RECORD_SIZE = 8 + 4 + 4 + LandmarkFrame.LANDMARK_COUNT * 12 + 8;
+    static final int FLAG_DETECTED = 1;
+    static final int FLAG_GOOD_TECHNIQUE = 1 << 1;
+    static final int FLAG_HANDS_IN_POSITION = 1 << 2;
+
+    // About six minutes at 30 fps per mapping
+    private static final int DEFAULT_CHUNK_RECORDS = 10_000;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final long chunkBytes;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private long frameCount;
+    private boolean closed;
+
+    public SessionRecorder(File path, long startTimeMillis) throws IOException {
+        this(path, startTimeMillis, DEFAULT_CHUNK_RECORDS);
+    }
+
+    SessionRecorder(File path, long startTimeMillis, int chunkRecords) throws IOException {
+        chunkBytes = (long) chunkRecords * RECORD_SIZE;
+        file = new RandomAccessFile(path, "rw");
+        try {
+            file.setLength(0);
+            channel = file.getChannel();
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, HEADER_SIZE);
+            header.putInt(12, RECORD_SIZE);
+            header.putLong(FRAME_COUNT_OFFSET, 0);
+            header.putLong(START_TIME_OFFSET, startTimeMillis);
+            mapChunk(HEADER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private void mapChunk(long start) throws IOException {
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, chunkBytes);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        chunkStart = start;
+    }
+
+    // Deletes the oldest session files in directory until at most maxFiles remain and they take
+    // at most maxBytes together. Returns the number deleted
+    public static int prune(File directory, int maxFiles, long maxBytes) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null) {
+            return 0;
+        }
+        // Newest first
+        Arrays.sort(files, (a, b) -> {
+            int byTime = Long.compare(b.lastModified(), a.lastModified());
+            return byTime != 0 ? byTime : b.getName().compareTo(a.getName());
+        });
+        int deleted = 0;
+        long bytes = 0;
+        for (int i = 0; i < files.length; i++) {
+            bytes += files[i].length();
+            if ((i >= maxFiles || bytes > maxBytes) && files[i].delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public void append(LandmarkFrame landmarks, CPRMetrics metrics, boolean detected)
+            throws IOException {
+        if (closed) {
+            throw new IOException("Session recorder is closed");
+        }
+        long position = HEADER_SIZE + frameCount * RECORD_SIZE;
+        if (position + RECORD_SIZE > chunkStart + chunkBytes) {
+            mapChunk(position);
+        }
+
+        int offset = (int) (position - chunkStart);
+        int flags = (detected ? FLAG_DETECTED : 0)
+                | (metrics.isGoodTechnique() ? FLAG_GOOD_TECHNIQUE : 0)
+                | (metrics.areHandsInPosition() ? FLAG_HANDS_IN_POSITION : 0);
+        int presentMask = 0;
+        chunk.putLong(offset, landmarks.getTimestampNanos());
+        offset += 16;
+        for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+            if (landmarks.isPresent(landmark)) {
+                presentMask |= 1 << landmark;
+                chunk.putFloat(offset, landmarks.getX(landmark));
+                chunk.putFloat(offset + 4, landmarks.getY(landmark));
+                chunk.putFloat(offset + 8, landmarks.getLikelihood(landmark));
+            } else {
+                chunk.putFloat(offset, 0f);
+                chunk.putFloat(offset + 4, 0f);
+                chunk.putFloat(offset + 8, 0f);
+            }
+            offset += 12;
+        }
+        chunk.putFloat(offset, metrics.getDepth());
+        chunk.putFloat(offset + 4, metrics.getRate());
+        offset = (int) (position - chunkStart);
+        chunk.putInt(offset + 8, presentMask);
+        chunk.putInt(offset + 12, flags);
+
+        // Publish the record only once it is complete, so a process crash never leaves a torn
+        // frame: the mapped pages outlive the process. Power loss is another matter, the OS
+        // writes dirty pages back in no particular order and may lose any not yet on disk
+        frameCount++;
+        header.putLong(FRAME_COUNT_OFFSET, frameCount);
+    }
+
+    // Flushes and trims the unused tail of the last chunk
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            chunk.force();
+            header.force();
+            chunk = null;
+            channel.truncate(HEADER_SIZE + frameCount * RECORD_SIZE);
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.cpr.core;
+
+import java.util.concurrent.locks.StampedLock;
+
+// Whole-session summary in constant memory, fed one compression cycle at a time from a single
+// thread (the analysis thread, or a MetricsBus delivery thread): Welford running moments and
+// P-squared quantiles of depth and rate, the share of compressions inside the guideline band,
+// and the longest hands-off pause, including one still open when the analyser ends the session.
+//
+// Each compression's rate comes from the interval since the previous cycle started, so it is
+// exact per compression. The first cycle after a pause has no rate, so it counts towards depth
+// but is left out of the in-band share rather than passed unjudged.
+//
+// Updates hold a StampedLock write lock for a few dozen arithmetic operations per
+// compression. Readers take an optimistic read and only block if an update raced with them,
+// so the UI can snapshot a live summary at any time without pausing analysis.
+public class SessionStatistics implements CompressionSegmenter.Listener {
+    private final float minDepth;
+    private final float maxDepth;
+    private final float minRate;
+    private final float maxRate;
+
+    private final StampedLock lock = new StampedLock();
+    // Guarded by lock for writes; only the feeding thread writes
+    private final Moments depth = new Moments();
+    private final Moments rate = new Moments();
+    private final P2Quantile[] depthQuantiles = {
+            new P2Quantile(0.1), new P2Quantile(0.5), new P2Quantile(0.9)};
+    private final P2Quantile[] rateQuantiles = {
+            new P2Quantile(0.1), new P2Quantile(0.5), new P2Quantile(0.9)};
+    private long compressions;
+    private long inTarget;
+    private long longestPauseNanos;
+
+    // Feeding thread only; -1 when the next cycle has no predecessor to measure a rate from
+    private long previousStartNanos = -1;
+
+    public SessionStatistics(float minDepth, float maxDepth, float minRate, float maxRate) {
+        this.minDepth = minDepth;
+        this.maxDepth = maxDepth;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+    }
+
+    private static final class Moments {
+        long count;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        double variance() {
+            return count < 2 ? 0 : m2 / (count - 1);
+        }
+    }
+
+    @Override
+    public void onCycle(CompressionCycle cycle) {
+        float cycleDepth = cycle.getPeakDepth();
+        long period = previousStartNanos < 0 ? 0 : cycle.getStartNanos() - previousStartNanos;
+        previousStartNanos = cycle.getStartNanos();
+        float cycleRate = period > 0 ? 60e9f / period : Float.NaN;
+        boolean depthInBand = cycleDepth >= minDepth && cycleDepth <= maxDepth;
+        boolean rateInBand = cycleRate >= minRate && cycleRate <= maxRate;
+
+        long stamp = lock.writeLock();
+        try {
+            compressions++;
+            if (depthInBand && rateInBand) {
+                inTarget++;
+            }
+            depth.add(cycleDepth);
+            for (P2Quantile quantile : depthQuantiles) {
+                quantile.add(cycleDepth);
+            }
+            if (!Float.isNaN(cycleRate)) {
+                rate.add(cycleRate);
+                for (P2Quantile quantile : rateQuantiles) {
+                    quantile.add(cycleRate);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void onPause(long startNanos, long endNanos) {
+        // The cycle after a pause starts a new rhythm
+        previousStartNanos = -1;
+        long pause = endNanos - startNanos;
+        long stamp = lock.writeLock();
+        try {
+            longestPauseNanos = Math.max(longestPauseNanos, pause);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Safe from any thread; fills out with a consistent view and returns it
+    public Summary snapshot(Summary out) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            copyTo(out);
+            if (lock.validate(stamp)) {
+                return out;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            copyTo(out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return out;
+    }
+
+    private void copyTo(Summary out) {
+        out.compressions = compressions;
+        out.inTarget = inTarget;
+        out.longestPauseNanos = longestPauseNanos;
+        out.meanDepth = depth.mean;
+        out.depthVariance = depth.variance();
+        out.rateCount = rate.count;
+        out.meanRate = rate.mean;
+        out.rateVariance = rate.variance();
+        for (int i = 0; i < 3; i++) {
+            out.depthQuantiles[i] = depthQuantiles[i].getQuantile();
+            out.rateQuantiles[i] = rateQuantiles[i].getQuantile();
+        }
+    }
+
+    // Feeding thread only
+    public void reset() {
+        long stamp = lock.writeLock();
+        try {
+            compressions = 0;
+            inTarget = 0;
+            longestPauseNanos = 0;
+            depth.count = 0;
+            depth.mean = 0;
+            depth.m2 = 0;
+            rate.count = 0;
+            rate.mean = 0;
+            rate.m2 = 0;
+            for (int i = 0; i < 3; i++) {
+                depthQuantiles[i].reset();
+                rateQuantiles[i].reset();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        previousStartNanos = -1;
+    }
+
+    // Reusable snapshot; depths are fractions of the upright frame, rates per minute
+    public static final class Summary {
+        private long compressions;
+        private long inTarget;
+        private long longestPauseNanos;
+        private double meanDepth;
+        private double depthVariance;
+        private long rateCount;
+        private double meanRate;
+        private double rateVariance;
+        private final double[] depthQuantiles = new double[3];
+        private final double[] rateQuantiles = new double[3];
+
+        public long getCompressions() { return compressions; }
+        public long getLongestPauseNanos() { return longestPauseNanos; }
+        public double getMeanDepth() { return meanDepth; }
+        public double getDepthVariance() { return depthVariance; }
+        // Compressions with a measured rate, i.e. all but the first after each pause
+        public long getRateCount() { return rateCount; }
+        public double getMeanRate() { return meanRate; }
+        public double getRateVariance() { return rateVariance; }
+        public double getDepthP10() { return depthQuantiles[0]; }
+        public double getDepthP50() { return depthQuantiles[1]; }
+        public double getDepthP90() { return depthQuantiles[2]; }
+        public double getRateP10() { return rateQuantiles[0]; }
+        public double getRateP50() { return rateQuantiles[1]; }
+        public double getRateP90() { return rateQuantiles[2]; }
+
+        // Percentage of compressions with a measured rate that had depth and rate in the band
+        public double getInTargetPercent() {
+            return rateCount == 0 ? 0 : 100.0 * inTarget / rateCount;
+        }
+    }
+}
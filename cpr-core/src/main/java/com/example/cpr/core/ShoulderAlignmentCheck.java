@@ -0,0 +1,37 @@
+package com.example.cpr.core;
+
+// Shoulders should be stacked directly above the hands. Measures how far the line from the
+// wrist midpoint to the shoulder midpoint leans from vertical, in true image proportions,
+// which assumes the camera is level and side-on to the rescuer.
+public class ShoulderAlignmentCheck implements FrameAnalyser {
+    private final float maxLeanDegrees;
+
+    public ShoulderAlignmentCheck(float maxLeanDegrees) {
+        this.maxLeanDegrees = maxLeanDegrees;
+    }
+
+    @Override
+    public void analyse(LandmarkFrame frame, TechniqueReport report) {
+        // Hands in position implies both shoulders and wrists are present
+        if (!report.getMetrics().areHandsInPosition()) {
+            return;
+        }
+        float shoulderX = (frame.getX(LandmarkFrame.LEFT_SHOULDER) + frame.getX(LandmarkFrame.RIGHT_SHOULDER)) / 2;
+        float shoulderY = (frame.getY(LandmarkFrame.LEFT_SHOULDER) + frame.getY(LandmarkFrame.RIGHT_SHOULDER)) / 2;
+        float wristX = (frame.getX(LandmarkFrame.LEFT_WRIST) + frame.getX(LandmarkFrame.RIGHT_WRIST)) / 2;
+        float wristY = (frame.getY(LandmarkFrame.LEFT_WRIST) + frame.getY(LandmarkFrame.RIGHT_WRIST)) / 2;
+
+        // Shoulders above the wrists have the smaller y
+        float dx = (shoulderX - wristX) * frame.getAspectRatio();
+        float dy = wristY - shoulderY;
+        float lean = (float) Math.toDegrees(Math.atan2(Math.abs(dx), dy));
+        report.setShoulderLeanDegrees(lean);
+        if (lean > maxLeanDegrees) {
+            report.addFault(TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS);
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+}
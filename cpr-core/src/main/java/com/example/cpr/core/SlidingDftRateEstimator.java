@@ -0,0 +1,231 @@
+package com.example.cpr.core;
+
+// Rate from the spectrum of the continuous wrist height signal rather than from individual
+// compressions, so a missed or doubled crossing does not skew it.
+//
+// Frames are resampled onto a fixed grid by linear interpolation, which keeps the estimate
+// valid when the analysis frame rate drops or jitters. A sliding DFT keeps one complex bin
+// per candidate rate up to date in O(bins) per grid sample, and the strongest bin is refined
+// by parabolic interpolation. Bins are recomputed exactly once per window to stop rounding
+// error from accumulating over long sessions.
+public class SlidingDftRateEstimator implements RateEstimator {
+    private static final double SAMPLE_RATE_HZ = 20.0;
+    private static final double WINDOW_SECONDS = 5.0;
+    private static final float MIN_RATE_BPM = 80f;
+    private static final float MAX_RATE_BPM = 140f;
+    private static final float BIN_SPACING_BPM = 2f;
+    // Fraction of the signal energy that must sit in the peak bin to count as periodic
+    private static final double MIN_PERIODICITY = 0.3;
+    // Smallest peak-to-peak wrist movement, as a fraction of the frame, that counts as compressing
+    private static final double MIN_AMPLITUDE = 0.02;
+    // Frame gaps longer than this restart the window instead of being interpolated across
+    private static final long MAX_GAP_NANOS = 1_000_000_000L;
+
+    private final long sampleIntervalNanos;
+    private final int windowSize;
+    private final int binCount;
+    private final float[] binRates;
+    // e^{-jwm} for sample age m and bin k at [m * binCount + k], so recompute() needs no trig
+    private final double[] twiddleRe;
+    private final double[] twiddleIm;
+    // Per-bin rotation e^{-jw}, tail factor e^{-jwN} and the DFT of a constant D = sum e^{-jwm}
+    private final double[] rotateRe;
+    private final double[] rotateIm;
+    private final double[] tailRe;
+    private final double[] tailIm;
+    private final double[] dcRe;
+    private final double[] dcIm;
+    private final double[] binRe;
+    private final double[] binIm;
+    private final double[] power;
+    private final double[] samples;
+
+    private int sampleHead = 0;
+    private int sampleCount = 0;
+    private int samplesSinceRecompute = 0;
+    private double sum = 0;
+    private double sumSquares = 0;
+
+    private boolean hasLastFrame = false;
+    private long lastFrameTime = 0;
+    private float lastFrameY = 0;
+    private long nextSampleTime = 0;
+
+    private float rate = 0f;
+
+    public SlidingDftRateEstimator() {
+        sampleIntervalNanos = (long) (1e9 / SAMPLE_RATE_HZ);
+        windowSize = (int) Math.round(SAMPLE_RATE_HZ * WINDOW_SECONDS);
+        binCount = (int) ((MAX_RATE_BPM - MIN_RATE_BPM) / BIN_SPACING_BPM) + 1;
+
+        binRates = new float[binCount];
+        twiddleRe = new double[windowSize * binCount];
+        twiddleIm = new double[windowSize * binCount];
+        rotateRe = new double[binCount];
+        rotateIm = new double[binCount];
+        tailRe = new double[binCount];
+        tailIm = new double[binCount];
+        dcRe = new double[binCount];
+        dcIm = new double[binCount];
+        binRe = new double[binCount];
+        binIm = new double[binCount];
+        power = new double[binCount];
+        samples = new double[windowSize];
+
+        for (int k = 0; k < binCount; k++) {
+            binRates[k] = MIN_RATE_BPM + k * BIN_SPACING_BPM;
+            double omega = 2 * Math.PI * (binRates[k] / 60.0) / SAMPLE_RATE_HZ;
+            rotateRe[k] = Math.cos(omega);
+            rotateIm[k] = -Math.sin(omega);
+            tailRe[k] = Math.cos(omega * windowSize);
+            tailIm[k] = -Math.sin(omega * windowSize);
+            for (int m = 0; m < windowSize; m++) {
+                twiddleRe[m * binCount + k] = Math.cos(omega * m);
+                twiddleIm[m * binCount + k] = -Math.sin(omega * m);
+                dcRe[k] += twiddleRe[m * binCount + k];
+                dcIm[k] += twiddleIm[m * binCount + k];
+            }
+        }
+    }
+
+    @Override
+    public void onSample(long timestampNanos, float wristY) {
+        if (!hasLastFrame || timestampNanos - lastFrameTime > MAX_GAP_NANOS) {
+            reset();
+            hasLastFrame = true;
+            lastFrameTime = timestampNanos;
+            lastFrameY = wristY;
+            nextSampleTime = timestampNanos;
+        }
+        if (timestampNanos < lastFrameTime) {
+            return;
+        }
+
+        // Emit every grid sample up to this frame
+        long span = timestampNanos - lastFrameTime;
+        boolean pushed = false;
+        while (nextSampleTime <= timestampNanos) {
+            float t = span == 0 ? 1f : (float) (nextSampleTime - lastFrameTime) / span;
+            push(lastFrameY + (wristY - lastFrameY) * t);
+            nextSampleTime += sampleIntervalNanos;
+            pushed = true;
+        }
+        lastFrameTime = timestampNanos;
+        lastFrameY = wristY;
+
+        if (pushed) {
+            rate = estimate();
+        }
+    }
+
+    @Override
+    public void onCompression(long timestampNanos) {
+    }
+
+    @Override
+    public float getRate() {
+        return rate;
+    }
+
+    @Override
+    public void reset() {
+        sampleHead = 0;
+        sampleCount = 0;
+        samplesSinceRecompute = 0;
+        sum = 0;
+        sumSquares = 0;
+        hasLastFrame = false;
+        rate = 0f;
+        for (int k = 0; k < binCount; k++) {
+            binRe[k] = 0;
+            binIm[k] = 0;
+        }
+    }
+
+    private void push(double x) {
+        // Slot being overwritten holds x(n - N) once the window is full
+        double oldest = sampleCount == windowSize ? samples[sampleHead] : 0;
+        samples[sampleHead] = x;
+        sampleHead = (sampleHead + 1) % windowSize;
+        if (sampleCount < windowSize) {
+            sampleCount++;
+        }
+        sum += x - oldest;
+        sumSquares += x * x - oldest * oldest;
+
+        if (++samplesSinceRecompute >= windowSize) {
+            recompute();
+            return;
+        }
+
+        // X(n) = x(n) + e^{-jw} X(n-1) - x(n-N) e^{-jwN}
+        for (int k = 0; k < binCount; k++) {
+            double re = binRe[k] * rotateRe[k] - binIm[k] * rotateIm[k];
+            double im = binRe[k] * rotateIm[k] + binIm[k] * rotateRe[k];
+            binRe[k] = x + re - oldest * tailRe[k];
+            binIm[k] = im - oldest * tailIm[k];
+        }
+    }
+
+    private void recompute() {
+        samplesSinceRecompute = 0;
+        sum = 0;
+        sumSquares = 0;
+        for (int k = 0; k < binCount; k++) {
+            binRe[k] = 0;
+            binIm[k] = 0;
+        }
+        // m = 0 is the newest sample
+        for (int m = 0; m < sampleCount; m++) {
+            double x = samples[(sampleHead - 1 - m + windowSize) % windowSize];
+            sum += x;
+            sumSquares += x * x;
+            int row = m * binCount;
+            for (int k = 0; k < binCount; k++) {
+                binRe[k] += x * twiddleRe[row + k];
+                binIm[k] += x * twiddleIm[row + k];
+            }
+        }
+    }
+
+    private float estimate() {
+        if (sampleCount < windowSize) {
+            return 0f;
+        }
+
+        double mean = sum / windowSize;
+        double energy = sumSquares - sum * mean;
+        // A sinusoid of peak-to-peak p has energy N * p^2 / 8
+        if (energy < windowSize * MIN_AMPLITUDE * MIN_AMPLITUDE / 8) {
+            return 0f;
+        }
+
+        int peak = 0;
+        for (int k = 0; k < binCount; k++) {
+            // Remove the window mean so the DC term does not leak into the low bins
+            double re = binRe[k] - mean * dcRe[k];
+            double im = binIm[k] - mean * dcIm[k];
+            power[k] = re * re + im * im;
+            if (power[k] > power[peak]) {
+                peak = k;
+            }
+        }
+
+        // A pure sinusoid puts |X|^2 = N * energy / 2 into its bin
+        if (power[peak] < MIN_PERIODICITY * windowSize * energy / 2) {
+            return 0f;
+        }
+
+        float offset = 0f;
+        if (peak > 0 && peak < binCount - 1) {
+            double left = Math.sqrt(power[peak - 1]);
+            double centre = Math.sqrt(power[peak]);
+            double right = Math.sqrt(power[peak + 1]);
+            double denominator = left - 2 * centre + right;
+            if (denominator != 0) {
+                offset = (float) (0.5 * (left - right) / denominator);
+            }
+        }
+        return binRates[peak] + offset * BIN_SPACING_BPM;
+    }
+}
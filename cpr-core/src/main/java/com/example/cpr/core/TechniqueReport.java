@@ -0,0 +1,48 @@
+package com.example.cpr.core;
+
+// Combined result of every analyser in a chain for one frame. Reused from frame to frame.
+public final class TechniqueReport {
+    // Fault bits, set by the analyser that checks them
+    public static final int FAULT_HANDS_APART = 1;
+    public static final int FAULT_DEPTH_OR_RATE = 1 << 1;
+    public static final int FAULT_ELBOWS_BENT = 1 << 2;
+    public static final int FAULT_SHOULDERS_NOT_OVER_HANDS = 1 << 3;
+
+    private final CPRMetrics metrics = new CPRMetrics();
+    private int faults;
+    private float elbowAngleDegrees;
+    private float shoulderLeanDegrees;
+
+    void clear() {
+        metrics.set(0, 0, false, false);
+        faults = 0;
+        elbowAngleDegrees = Float.NaN;
+        shoulderLeanDegrees = Float.NaN;
+    }
+
+    void addFault(int fault) {
+        faults |= fault;
+    }
+
+    void setElbowAngleDegrees(float degrees) {
+        elbowAngleDegrees = degrees;
+    }
+
+    void setShoulderLeanDegrees(float degrees) {
+        shoulderLeanDegrees = degrees;
+    }
+
+    // Written by the compression analyser
+    public CPRMetrics getMetrics() { return metrics; }
+    public int getFaults() { return faults; }
+    public boolean hasFault(int fault) { return (faults & fault) != 0; }
+    // The more bent arm; NaN when not measured
+    public float getElbowAngleDegrees() { return elbowAngleDegrees; }
+    // Lean of the shoulders away from vertical over the hands; NaN when not measured
+    public float getShoulderLeanDegrees() { return shoulderLeanDegrees; }
+
+    // Hands on the chest and no check failed
+    public boolean isGoodTechnique() {
+        return metrics.areHandsInPosition() && faults == 0;
+    }
+}
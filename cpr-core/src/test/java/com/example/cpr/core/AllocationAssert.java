@@ -0,0 +1,38 @@
+package com.example.cpr.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import static org.junit.Assert.assertEquals;
+
+// Shared check for the per-frame paths that must not allocate
+final class AllocationAssert {
+    // Queueing a C2 compile resolves the string constants of the method's class on the calling
+    // thread, so warm up well past the C2 thresholds rather than just until the first compiles
+    private static final int WARMUP_ROUNDS = 5;
+
+    private AllocationAssert() {
+    }
+
+    // Calls step with increasing indices, first to warm up and then for iterations calls that
+    // must not allocate on this thread
+    static void assertNoAllocation(int iterations, IntConsumer step) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int measuredFrom = WARMUP_ROUNDS * iterations;
+        for (int i = 0; i < measuredFrom; i++) {
+            step.accept(i);
+        }
+        threads.getThreadAllocatedBytes(threadId);
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = measuredFrom; i < measuredFrom + iterations; i++) {
+            step.accept(i);
+        }
+        long after = threads.getThreadAllocatedBytes(threadId);
+
+        assertEquals(0, after - before);
+    }
+}
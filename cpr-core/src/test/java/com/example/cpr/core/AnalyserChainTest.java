@@ -0,0 +1,118 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AnalyserChainTest {
+    private static final long FRAME_INTERVAL_NANOS = SyntheticTrace.FRAME_INTERVAL_NANOS;
+    // 4:3 landscape, so normalised x spans more pixels than normalised y
+    private static final float ASPECT = 4f / 3f;
+
+    private static AnalyserChain chain() {
+        return new AnalyserChain(new CompressionCheck(new CPRAnalyser()),
+                new ElbowLockCheck(160f), new ShoulderAlignmentCheck(20f));
+    }
+
+    // Side view: shoulders above the hands with the elbows pushed out by elbowOffset, shoulders
+    // shifted by shoulderOffset, wrists moving down 0.2 at 110 compressions/min
+    private static void fillFrame(LandmarkFrame frame, int index, float elbowOffset,
+                                  float shoulderOffset, float handSeparation) {
+        float wristY = SyntheticTrace.wristY(SyntheticTrace.RATE_BPM, SyntheticTrace.COMPRESSION_DEPTH,
+                index * FRAME_INTERVAL_NANOS / 1e9) + 0.2f;
+        float shoulderY = wristY - 0.4f;
+        frame.clear(index * FRAME_INTERVAL_NANOS);
+        frame.setAspectRatio(ASPECT);
+        frame.set(LandmarkFrame.LEFT_SHOULDER, 0.5f + shoulderOffset, shoulderY, 0.99f);
+        frame.set(LandmarkFrame.RIGHT_SHOULDER, 0.5f + shoulderOffset, shoulderY, 0.99f);
+        float leftWristX = 0.5f - handSeparation / 2;
+        float rightWristX = 0.5f + handSeparation / 2;
+        // Halfway between shoulder and wrist is a straight arm
+        float shoulderX = 0.5f + shoulderOffset;
+        frame.set(LandmarkFrame.LEFT_ELBOW, (shoulderX + leftWristX) / 2 + elbowOffset,
+                shoulderY + 0.2f, 0.99f);
+        frame.set(LandmarkFrame.RIGHT_ELBOW, (shoulderX + rightWristX) / 2 + elbowOffset,
+                shoulderY + 0.2f, 0.99f);
+        frame.set(LandmarkFrame.LEFT_WRIST, leftWristX, wristY, 0.99f);
+        frame.set(LandmarkFrame.RIGHT_WRIST, rightWristX, wristY, 0.99f);
+    }
+
+    private static TechniqueReport run(AnalyserChain chain, int frames, float elbowOffset,
+                                       float shoulderOffset, float handSeparation) {
+        LandmarkFrame frame = new LandmarkFrame();
+        TechniqueReport report = new TechniqueReport();
+        for (int i = 0; i < frames; i++) {
+            fillFrame(frame, i, elbowOffset, shoulderOffset, handSeparation);
+            chain.analyse(frame, report);
+        }
+        return report;
+    }
+
+    @Test
+    public void straightArmsOverTheHandsPassTheExtraChecks() {
+        TechniqueReport report = run(chain(), 300, 0f, 0f, 0.02f);
+
+        assertTrue(report.getMetrics().areHandsInPosition());
+        assertEquals(110f, report.getMetrics().getRate(), 5f);
+        assertFalse(report.hasFault(TechniqueReport.FAULT_ELBOWS_BENT));
+        assertFalse(report.hasFault(TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS));
+        assertEquals(180f, report.getElbowAngleDegrees(), 0.5f);
+        assertEquals(0f, report.getShoulderLeanDegrees(), 0.5f);
+    }
+
+    @Test
+    public void bentElbowsAreFlaggedUsingTrueProportions() {
+        // 0.05 across is 0.067 in height units, so each arm segment is about 18.5 degrees off
+        // the line and the elbow angle about 143 degrees
+        TechniqueReport report = run(chain(), 100, 0.05f, 0f, 0.02f);
+
+        assertTrue(report.hasFault(TechniqueReport.FAULT_ELBOWS_BENT));
+        assertFalse(report.isGoodTechnique());
+        double segment = Math.toDegrees(Math.atan2(0.05 * ASPECT, 0.2));
+        assertEquals(180 - 2 * segment, report.getElbowAngleDegrees(), 0.5);
+    }
+
+    @Test
+    public void shouldersBehindTheHandsAreFlagged() {
+        TechniqueReport report = run(chain(), 100, 0f, -0.15f, 0.02f);
+
+        assertTrue(report.hasFault(TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS));
+        double lean = Math.toDegrees(Math.atan2(0.15 * ASPECT, 0.4));
+        assertEquals(lean, report.getShoulderLeanDegrees(), 0.5);
+    }
+
+    @Test
+    public void handsApartSkipsTheOtherChecks() {
+        TechniqueReport report = run(chain(), 100, 0.05f, -0.15f, 0.4f);
+
+        assertEquals(TechniqueReport.FAULT_HANDS_APART, report.getFaults());
+        assertTrue(Float.isNaN(report.getElbowAngleDegrees()));
+        assertTrue(Float.isNaN(report.getShoulderLeanDegrees()));
+    }
+
+    @Test
+    public void eachAnalyserIsTimed() {
+        AnalyserChain chain = chain();
+        run(chain, 50, 0f, 0f, 0.02f);
+
+        for (int i = 0; i < chain.size(); i++) {
+            assertEquals(50, chain.getHistogram(i).getCount());
+        }
+        StringBuilder summary = new StringBuilder();
+        chain.appendSummary(summary);
+        assertTrue(summary.toString().startsWith("CompressionCheck"));
+        assertTrue(summary.toString().contains("ElbowLockCheck"));
+    }
+
+    @Test
+    public void analyse_doesNotAllocate() {
+        AnalyserChain chain = chain();
+        LandmarkFrame frame = new LandmarkFrame();
+        TechniqueReport report = new TechniqueReport();
+
+        AllocationAssert.assertNoAllocation(10000, i -> {
+            fillFrame(frame, i, 0f, 0f, 0.02f);
+            chain.analyse(frame, report);
+        });
+    }
+}
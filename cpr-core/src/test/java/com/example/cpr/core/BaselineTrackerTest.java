@@ -0,0 +1,70 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BaselineTrackerTest {
+    private static final long FRAME_INTERVAL_NANOS = 33_000_000L;
+
+    private static float filtered(float[] values, int i) {
+        if (i < 2) {
+            return values[i];
+        }
+        float[] three = {values[i - 2], values[i - 1], values[i]};
+        Arrays.sort(three);
+        return three[1];
+    }
+
+    @Test
+    public void matchesBruteForceWindowMinimumOfMedians() {
+        long window = 1_000_000_000L;
+        BaselineTracker tracker = new BaselineTracker(window, 64);
+        Random random = new Random(7);
+        int samples = 2000;
+        long[] times = new long[samples];
+        float[] values = new float[samples];
+
+        assertTrue(Float.isNaN(tracker.getBaseline()));
+        for (int i = 0; i < samples; i++) {
+            // Jittered frame times
+            times[i] = i * FRAME_INTERVAL_NANOS + random.nextInt(5_000_000);
+            values[i] = random.nextFloat();
+            float baseline = tracker.onSample(times[i], values[i]);
+
+            float expected = Float.MAX_VALUE;
+            for (int j = i; j >= 0 && times[j] >= times[i] - window; j--) {
+                expected = Math.min(expected, filtered(values, j));
+            }
+            assertEquals(expected, baseline, 0f);
+            assertEquals(expected, tracker.getBaseline(), 0f);
+        }
+    }
+
+    @Test
+    public void singleFrameOutlierIsIgnored() {
+        BaselineTracker tracker = new BaselineTracker(1_000_000_000L, 64);
+        for (int i = 0; i < 10; i++) {
+            tracker.onSample(i * FRAME_INTERVAL_NANOS, i == 5 ? 0.1f : 0.4f);
+        }
+        assertEquals(0.4f, tracker.getBaseline(), 0f);
+    }
+
+    @Test
+    public void capacityShortensTheWindow() {
+        BaselineTracker tracker = new BaselineTracker(10_000_000_000L, 4);
+        tracker.onSample(0, 0.1f);
+        tracker.onSample(FRAME_INTERVAL_NANOS, 0.2f);
+        for (int i = 2; i <= 6; i++) {
+            tracker.onSample(i * FRAME_INTERVAL_NANOS, 0.5f + i * 0.01f);
+        }
+        // Rising samples are all kept, so only the last four remain: medians 0.52 to 0.55
+        assertEquals(0.52f, tracker.getBaseline(), 0f);
+
+        tracker.reset();
+        assertTrue(tracker.isEmpty());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CPRAnalyserTest {
+    private static final int FRAMES = 10000;
+    private static final long FRAME_INTERVAL_NANOS = SyntheticTrace.FRAME_INTERVAL_NANOS;
+
+    // Wrists start at rest and move down 0.2 at 110 compressions/min
+    private static float wristY(int frame) {
+        return SyntheticTrace.wristY(SyntheticTrace.RATE_BPM, SyntheticTrace.COMPRESSION_DEPTH,
+                frame * FRAME_INTERVAL_NANOS / 1e9);
+    }
+
+    private static void fillFrame(LandmarkFrame frame, int index, float leftX, float rightX) {
+        float y = wristY(index);
+        SyntheticTrace.fillPose(frame, index * FRAME_INTERVAL_NANOS, leftX, y, rightX, y);
+    }
+
+    private static void runFrames(CPRAnalyser analyser, LandmarkFrame frame, CPRMetrics out,
+                                  int from, int to) {
+        for (int i = from; i < to; i++) {
+            fillFrame(frame, i, 0.50f, 0.52f);
+            analyser.analyze(frame, out);
+        }
+    }
+
+    @Test
+    public void analyze_measuresSteadyRate() {
+        CPRAnalyser analyser = new CPRAnalyser();
+        CPRMetrics metrics = new CPRMetrics();
+        runFrames(analyser, new LandmarkFrame(), metrics, 0, 300);
+
+        assertTrue(metrics.areHandsInPosition());
+        assertEquals(110f, metrics.getRate(), 5f);
+    }
+
+    @Test
+    public void analyze_resetsWhenHandsSeparate() {
+        CPRAnalyser analyser = new CPRAnalyser();
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        runFrames(analyser, frame, metrics, 0, 300);
+
+        // A second apart, past the grace period
+        for (int i = 300; i < 330; i++) {
+            fillFrame(frame, i, 0.2f, 0.8f);
+            analyser.analyze(frame, metrics);
+        }
+
+        assertFalse(metrics.areHandsInPosition());
+        assertEquals(0f, metrics.getRate(), 0f);
+    }
+
+    @Test
+    public void analyze_keepsMeasurementsThroughBriefSeparation() {
+        CPRAnalyser analyser = new CPRAnalyser();
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        runFrames(analyser, frame, metrics, 0, 300);
+        int compressions = analyser.getCompressionCount();
+
+        for (int i = 300; i < 305; i++) {
+            fillFrame(frame, i, 0.2f, 0.8f);
+            analyser.analyze(frame, metrics);
+            assertFalse(metrics.areHandsInPosition());
+            assertEquals(110f, metrics.getRate(), 5f);
+        }
+        runFrames(analyser, frame, metrics, 305, 400);
+
+        assertTrue(metrics.areHandsInPosition());
+        assertEquals(110f, metrics.getRate(), 5f);
+        assertTrue(analyser.getCompressionCount() > compressions);
+    }
+
+    @Test
+    public void analyze_followsCameraShift() {
+        CPRAnalyser analyser = new CPRAnalyser();
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        runFrames(analyser, frame, metrics, 0, 300);
+
+        // The whole scene moves down by most of a compression, as if the phone slipped
+        int countAfterShift = 0;
+        float minDepth = Float.MAX_VALUE;
+        for (int i = 300; i < 600; i++) {
+            fillFrame(frame, i, 0.50f, 0.52f);
+            float y = wristY(i) + 0.16f;
+            frame.set(LandmarkFrame.LEFT_WRIST, 0.50f, y, 0.99f);
+            frame.set(LandmarkFrame.RIGHT_WRIST, 0.52f, y, 0.99f);
+            analyser.analyze(frame, metrics);
+            if (i == 450) {
+                countAfterShift = analyser.getCompressionCount();
+            }
+            if (i > 450) {
+                minDepth = Math.min(minDepth, metrics.getDepth());
+            }
+        }
+
+        assertEquals(0f, minDepth, 0.01f);
+        assertTrue(analyser.getCompressionCount() - countAfterShift >= 7);
+        assertEquals(110f, metrics.getRate(), 5f);
+    }
+
+    @Test
+    public void analyze_timesFromFrameTimestampsWithUnevenSpacing() {
+        // Camera timestamps start at an arbitrary boot-time base and frame spacing jitters
+        // under load, so every interval has to come from the frame rather than a clock
+        long baseNanos = 86_400_000_000_000L;
+        long[] intervals = {20_000_000L, 45_000_000L, 33_000_000L, 28_000_000L, 39_000_000L};
+        CPRAnalyser analyser = new CPRAnalyser();
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+
+        long elapsed = 0;
+        for (int i = 0; i < 300; i++) {
+            float y = SyntheticTrace.wristY(SyntheticTrace.RATE_BPM, SyntheticTrace.COMPRESSION_DEPTH,
+                    elapsed / 1e9);
+            SyntheticTrace.fillPose(frame, baseNanos + elapsed, 0.50f, y, 0.52f, y);
+            analyser.analyze(frame, metrics);
+            elapsed += intervals[i % intervals.length];
+        }
+
+        assertTrue(metrics.areHandsInPosition());
+        assertEquals(110f, metrics.getRate(), 5f);
+    }
+
+    @Test
+    public void analyze_requiresWristsAndShoulders() {
+        LandmarkFrame frame = new LandmarkFrame();
+        frame.clear(0);
+        frame.set(LandmarkFrame.LEFT_WRIST, 0.5f, 0.5f, 0.99f);
+        frame.set(LandmarkFrame.RIGHT_WRIST, 0.5f, 0.5f, 0.99f);
+
+        assertFalse(new CPRAnalyser().analyze(frame).areHandsInPosition());
+    }
+
+    @Test
+    public void analyze_doesNotAllocate() {
+        CPRAnalyser analyser = new CPRAnalyser();
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+
+        AllocationAssert.assertNoAllocation(FRAMES, i -> {
+            fillFrame(frame, i, 0.50f, 0.52f);
+            analyser.analyze(frame, metrics);
+        });
+    }
+}
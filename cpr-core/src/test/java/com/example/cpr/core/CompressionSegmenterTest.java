@@ -0,0 +1,112 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompressionSegmenterTest {
+    private static final long FRAME_INTERVAL_NANOS = SyntheticTrace.FRAME_INTERVAL_NANOS;
+
+    private static final class Recorder implements CompressionSegmenter.Listener {
+        final List<CompressionCycle> cycles = new ArrayList<>();
+        final List<long[]> pauses = new ArrayList<>();
+
+        @Override
+        public void onCycle(CompressionCycle cycle) {
+            CompressionCycle copy = new CompressionCycle();
+            copy.copyFrom(cycle);
+            cycles.add(copy);
+        }
+
+        @Override
+        public void onPause(long startNanos, long endNanos) {
+            pauses.add(new long[]{startNanos, endNanos});
+        }
+    }
+
+    private static Recorder analyse(SyntheticTrace trace) {
+        CPRAnalyser analyser = new CPRAnalyser();
+        Recorder recorder = new Recorder();
+        analyser.setCycleListener(recorder);
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        for (int i = 0; i < trace.length; i++) {
+            trace.fill(i, frame);
+            analyser.analyze(frame, metrics);
+        }
+        assertEquals(analyser.getCompressionCount(), recorder.cycles.size());
+        return recorder;
+    }
+
+    @Test
+    public void steadyCompressionsGiveOneCyclePerCompression() {
+        Recorder recorder = analyse(new SyntheticTrace.Builder().build(600));
+
+        assertTrue(recorder.cycles.size() >= 35);
+        assertTrue(recorder.pauses.isEmpty());
+        for (int i = 0; i < recorder.cycles.size(); i++) {
+            CompressionCycle cycle = recorder.cycles.get(i);
+            assertEquals(i, cycle.getIndex());
+            assertTrue(cycle.isFullRecoil());
+            assertEquals(0.2f, cycle.getPeakDepth(), 0.01f);
+            assertEquals(0.5f, cycle.getDutyCycle(), 0.1f);
+            assertTrue(cycle.getStartNanos() < cycle.getBottomNanos());
+            assertTrue(cycle.getBottomNanos() < cycle.getEndNanos());
+        }
+    }
+
+    @Test
+    public void handsOffGapIsReportedAsPause() {
+        // About four seconds still at rest
+        Recorder recorder = analyse(new SyntheticTrace.Builder().rest(200, 320).build(600));
+
+        assertEquals(1, recorder.pauses.size());
+        long[] pause = recorder.pauses.get(0);
+        assertEquals(120 * FRAME_INTERVAL_NANOS, pause[1] - pause[0], 40 * FRAME_INTERVAL_NANOS);
+    }
+
+    @Test
+    public void shallowRecoilIsFlaggedWithResidualDepth() {
+        CompressionSegmenter segmenter = new CompressionSegmenter(0.02f, 2_000_000_000L);
+        Recorder recorder = new Recorder();
+        segmenter.setListener(recorder);
+
+        // Down to 0.2, released at 0.1, never back above 0.06, then the next stroke begins
+        float[] depths = {0f, 0.1f, 0.16f, 0.2f, 0.18f, 0.1f, 0.06f, 0.07f, 0.16f};
+        for (int i = 0; i < depths.length; i++) {
+            long t = i * FRAME_INTERVAL_NANOS;
+            segmenter.onSample(t, depths[i]);
+            if (i == 2 || i == 8) {
+                segmenter.onCompressionDown(t, depths[i]);
+            } else if (i == 5) {
+                segmenter.onCompressionReleased(t, depths[i]);
+            }
+        }
+
+        assertEquals(1, recorder.cycles.size());
+        CompressionCycle cycle = recorder.cycles.get(0);
+        assertFalse(cycle.isFullRecoil());
+        assertEquals(0.06f, cycle.getResidualDepth(), 1e-6f);
+        assertEquals(0, cycle.getStartNanos());
+        assertEquals(3 * FRAME_INTERVAL_NANOS, cycle.getBottomNanos());
+        assertEquals(6 * FRAME_INTERVAL_NANOS, cycle.getEndNanos());
+        assertEquals(0.2f, cycle.getPeakDepth(), 0f);
+    }
+
+    @Test
+    public void unreleasedDownstrokeIsDroppedOnInterruption() {
+        CompressionSegmenter segmenter = new CompressionSegmenter();
+        Recorder recorder = new Recorder();
+        segmenter.setListener(recorder);
+
+        segmenter.onSample(0, 0f);
+        segmenter.onCompressionDown(FRAME_INTERVAL_NANOS, 0.16f);
+        segmenter.onInterrupted();
+
+        assertTrue(recorder.cycles.isEmpty());
+        assertEquals(0, segmenter.getCycleCount());
+    }
+}
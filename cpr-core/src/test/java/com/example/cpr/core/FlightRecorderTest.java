@@ -0,0 +1,111 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class FlightRecorderTest {
+    private static String decode(FlightRecorder recorder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recorder.writeTo(bytes);
+        StringBuilder text = new StringBuilder();
+        FlightRecordDecoder.decode(new ByteArrayInputStream(bytes.toByteArray()), text);
+        return text.toString();
+    }
+
+    @Test
+    public void keepsMostRecentRecordsWhenFull() {
+        FlightRecorder recorder = new FlightRecorder(6);
+        assertEquals(8, recorder.getCapacity());
+        for (int i = 0; i < 20; i++) {
+            recorder.record(FlightRecorder.EVENT_FRAME, 1, i * 1_000_000L, i, 0.5f);
+        }
+
+        long[] records = new long[recorder.getCapacity() * FlightRecorder.RECORD_LONGS];
+        int count = recorder.snapshot(records);
+
+        // The oldest slot is dropped in case the producer is rewriting it
+        assertEquals(7, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals((13 + i) * 1_000_000L, records[i * FlightRecorder.RECORD_LONGS]);
+        }
+    }
+
+    @Test
+    public void dumpDecodesToText() throws IOException {
+        FlightRecorder recorder = new FlightRecorder(16);
+        recorder.record(FlightRecorder.EVENT_FRAME, 1, 5_000_000L, 0.05f, 0.4f);
+        recorder.record(FlightRecorder.EVENT_COMPRESSION, 0, 7_500_000L, 0.2f, 110f);
+        recorder.record(FlightRecorder.EVENT_RESET, FlightRecorder.RESET_HANDS_APART, 9_000_000L, 0f, 0f);
+
+        String[] lines = decode(recorder).split("\n");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[0], lines[0].matches(" +0\\.0 ms +frame +separation=0\\.050 wristY=0\\.400 handsInPosition=true"));
+        assertTrue(lines[1], lines[1].matches(" +2\\.5 ms +compression depth=0\\.200 rate=110\\.0"));
+        assertTrue(lines[2], lines[2].endsWith("reset       reason=hands apart"));
+    }
+
+    @Test
+    public void analyserRecordsResetAndRateCollapse() throws IOException {
+        FlightRecorder recorder = new FlightRecorder(4096);
+        int[] anomalies = new int[1];
+        recorder.setAnomalyListener((type, timestampNanos) -> anomalies[0]++);
+        CPRAnalyser analyser = new CPRAnalyser(new SlidingDftRateEstimator());
+        analyser.setFlightRecorder(recorder);
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+
+        // Steady compressions, then the hands hold still so the spectral rate drops away, then
+        // they come apart for a second, past the grace period
+        SyntheticTrace trace = new SyntheticTrace.Builder().rest(300, 630).handsApart(600, 630).build(630);
+        for (int i = 0; i < trace.length; i++) {
+            trace.fill(i, frame);
+            analyser.analyze(frame, metrics);
+        }
+
+        String text = decode(recorder);
+        assertTrue(text.contains("compression depth="));
+        assertTrue(text.contains("ANOMALY     rate collapsed"));
+        assertTrue(text.contains("reset       reason=hands apart"));
+        assertTrue(anomalies[0] > 0);
+    }
+
+    @Test
+    public void analyserRecordsMissingLandmarksOnlyWhenTheyChange() {
+        FlightRecorder recorder = new FlightRecorder(64);
+        CPRAnalyser analyser = new CPRAnalyser();
+        analyser.setFlightRecorder(recorder);
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+
+        // Ten frames with only the shoulders, ten with a wrist as well, a complete frame, then
+        // the wrists go again
+        for (int i = 0; i < 31; i++) {
+            frame.clear(i * SyntheticTrace.FRAME_INTERVAL_NANOS);
+            frame.set(LandmarkFrame.LEFT_SHOULDER, 0.45f, 0.1f, 0.9f);
+            frame.set(LandmarkFrame.RIGHT_SHOULDER, 0.55f, 0.1f, 0.9f);
+            if (i >= 10 && i <= 20) {
+                frame.set(LandmarkFrame.LEFT_WRIST, 0.5f, 0.4f, 0.9f);
+            }
+            if (i == 20) {
+                frame.set(LandmarkFrame.RIGHT_WRIST, 0.52f, 0.4f, 0.9f);
+            }
+            analyser.analyze(frame, metrics);
+        }
+
+        long[] records = new long[recorder.getCapacity() * FlightRecorder.RECORD_LONGS];
+        int count = recorder.snapshot(records);
+        int missing = 0;
+        for (int i = 0; i < count; i++) {
+            if ((int) (records[i * FlightRecorder.RECORD_LONGS + 1] >>> 32) == FlightRecorder.EVENT_LANDMARKS_MISSING) {
+                missing++;
+            }
+        }
+        assertEquals(3, missing);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LandmarkTrackerTest {
+    private static final long FRAME_INTERVAL_NANOS = 33_333_333L;
+    private static final int FRAMES = 30 * 30;
+
+    // Detections with a little landmark jitter
+    private static SyntheticTrace trace(long seed) {
+        return new SyntheticTrace.Builder().frameInterval(FRAME_INTERVAL_NANOS)
+                .noise(0.003f, seed).build(FRAMES);
+    }
+
+    @Test
+    public void predictedFramesKeepDepthAndRateWithinTolerance() {
+        CPRAnalyser everyFrame = new CPRAnalyser();
+        CPRAnalyser tracked = new CPRAnalyser();
+        LandmarkTracker tracker = new LandmarkTracker();
+        DetectionScheduler scheduler = new DetectionScheduler(2, 0.05f);
+        LandmarkFrame detected = new LandmarkFrame();
+        LandmarkFrame predicted = new LandmarkFrame();
+        CPRMetrics expected = new CPRMetrics();
+        CPRMetrics actual = new CPRMetrics();
+        SyntheticTrace trace = trace(3);
+
+        int detections = 0;
+        float maxDepthError = 0;
+        float totalDepthError = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            trace.fill(i, detected);
+            everyFrame.analyze(detected, expected);
+
+            if (scheduler.shouldDetect(tracker, detected.getTimestampNanos())) {
+                detections++;
+                tracker.correct(detected);
+                tracked.analyze(detected, actual);
+            } else {
+                tracker.predict(detected.getTimestampNanos(), predicted);
+                tracked.analyze(predicted, actual);
+            }
+            float depthError = Math.abs(expected.getDepth() - actual.getDepth());
+            maxDepthError = Math.max(maxDepthError, depthError);
+            totalDepthError += depthError;
+        }
+
+        assertEquals(FRAMES / 2, detections, 2);
+        // Depth is 0.2 at the bottom of each compression. Each analyser's baseline follows the
+        // tops it sees, and predictions overshoot the top slightly, so the tracked depths read
+        // a little deeper on top of the prediction error itself
+        assertTrue("Max depth error " + maxDepthError, maxDepthError < 0.035f);
+        assertTrue("Mean depth error " + totalDepthError / FRAMES, totalDepthError / FRAMES < 0.01f);
+        assertEquals(expected.getRate(), actual.getRate(), 3f);
+        assertTrue(actual.getRate() > 100);
+    }
+
+    @Test
+    public void uncertainWristsForceDetection() {
+        LandmarkTracker tracker = new LandmarkTracker();
+        DetectionScheduler scheduler = new DetectionScheduler(10, 0.03f);
+        LandmarkFrame frame = new LandmarkFrame();
+
+        // Nothing tracked yet
+        assertTrue(scheduler.shouldDetect(tracker, 0));
+
+        SyntheticTrace trace = trace(1);
+        for (int i = 0; i < 10; i++) {
+            trace.fill(i, frame);
+            tracker.correct(frame);
+        }
+        assertFalse(scheduler.shouldDetect(tracker, 10 * FRAME_INTERVAL_NANOS));
+        // Half a second without a detection is far beyond a 0.03 standard deviation
+        assertTrue(scheduler.shouldDetect(tracker, 9 * FRAME_INTERVAL_NANOS + 500_000_000L));
+    }
+
+    @Test
+    public void lostLandmarksStopBeingPredicted() {
+        LandmarkTracker tracker = new LandmarkTracker();
+        LandmarkFrame frame = new LandmarkFrame();
+        trace(1).fill(0, frame);
+        tracker.correct(frame);
+
+        frame.clear(FRAME_INTERVAL_NANOS);
+        tracker.correct(frame);
+        tracker.predict(2 * FRAME_INTERVAL_NANOS, frame);
+
+        assertTrue(frame.isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketsCoverValuesWithoutGaps() {
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            assertEquals(LatencyHistogram.bucketLowerBound(bucket - 1)
+                            + LatencyHistogram.bucketWidth(bucket - 1),
+                    LatencyHistogram.bucketLowerBound(bucket));
+        }
+        for (long value : new long[]{0, 15, 16, 17, 1000, 33_000_000L, 5_000_000_000L}) {
+            int bucket = LatencyHistogram.bucketIndex(value);
+            assertTrue(value >= LatencyHistogram.bucketLowerBound(bucket));
+            assertTrue(value < LatencyHistogram.bucketLowerBound(bucket)
+                    + LatencyHistogram.bucketWidth(bucket));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 microsecond to 100 ms uniformly, in 1 microsecond steps
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50e6, histogram.getPercentileNanos(50), 50e6 / 16);
+        assertEquals(95e6, histogram.getPercentileNanos(95), 95e6 / 16);
+        assertEquals(99e6, histogram.getPercentileNanos(99), 99e6 / 16);
+        assertEquals(100_000_000L, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void profilerDumpsNonEmptyBuckets() throws Exception {
+        PipelineProfiler profiler = new PipelineProfiler();
+        profiler.record(PipelineProfiler.Stage.DETECT, 20_000_000L);
+        profiler.record(PipelineProfiler.Stage.DETECT, 20_000_000L);
+
+        StringWriter csv = new StringWriter();
+        profiler.writeCsv(csv);
+
+        String[] lines = csv.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("DETECT,"));
+        assertTrue(lines[1].endsWith(",2"));
+    }
+}
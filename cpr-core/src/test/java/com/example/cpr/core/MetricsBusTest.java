@@ -0,0 +1,195 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class MetricsBusTest {
+    private static final long TIMEOUT_NANOS = 20_000_000L;
+
+    // Runs queued tasks only when asked, standing in for a busy delivery thread
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static final class Recorder implements MetricsBus.Subscriber {
+        final List<Long> timestamps = new ArrayList<>();
+        final List<Integer> types = new ArrayList<>();
+
+        @Override
+        public void onEvent(MetricsEvent event) {
+            timestamps.add(event.getTimestampNanos());
+            types.add(event.getType());
+        }
+    }
+
+    private static TechniqueReport report(float rate) {
+        TechniqueReport report = new TechniqueReport();
+        report.clear();
+        report.getMetrics().set(0.1f, rate, true, true);
+        return report;
+    }
+
+    @Test
+    public void drop_keepsTheOldestEventsInOrder() {
+        MetricsBus bus = new MetricsBus(TIMEOUT_NANOS);
+        ManualExecutor executor = new ManualExecutor();
+        Recorder recorder = new Recorder();
+        MetricsBus.Subscription subscription = bus.subscribe(MetricsEvent.FRAME, recorder, executor,
+                MetricsBus.Overflow.DROP, 4);
+
+        TechniqueReport report = report(110f);
+        for (long i = 0; i < 10; i++) {
+            bus.publishFrame(i, report, 0);
+        }
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), recorder.timestamps);
+        assertEquals(4, subscription.getDelivered());
+        assertEquals(6, subscription.getDropped());
+
+        // Room again once drained
+        bus.publishFrame(10, report, 0);
+        executor.runAll();
+        assertEquals(Long.valueOf(10), recorder.timestamps.get(4));
+    }
+
+    @Test
+    public void latest_deliversOnlyTheNewestEvent() {
+        MetricsBus bus = new MetricsBus(TIMEOUT_NANOS);
+        ManualExecutor executor = new ManualExecutor();
+        List<Float> rates = new ArrayList<>();
+        MetricsBus.Subscription subscription = bus.subscribe(MetricsEvent.FRAME,
+                event -> rates.add(event.getMetrics().getRate()), executor, MetricsBus.Overflow.LATEST, 1);
+
+        for (int i = 0; i < 5; i++) {
+            bus.publishFrame(i, report(100f + i), 0);
+        }
+        executor.runAll();
+
+        assertEquals(1, rates.size());
+        assertEquals(104f, rates.get(0), 0f);
+        assertEquals(4, subscription.getDropped());
+    }
+
+    @Test
+    public void typeMaskFiltersEvents() {
+        MetricsBus bus = new MetricsBus(TIMEOUT_NANOS);
+        Recorder frames = new Recorder();
+        Recorder compressions = new Recorder();
+        bus.subscribe(MetricsEvent.FRAME, frames, Runnable::run, MetricsBus.Overflow.DROP, 8);
+        bus.subscribe(MetricsEvent.CYCLE | MetricsEvent.PAUSE, compressions, Runnable::run,
+                MetricsBus.Overflow.DROP, 8);
+
+        bus.publishFrame(1, report(110f), 0);
+        bus.onCycle(new CompressionCycle().set(0, 2, 3, 4, 0.1f, 0f, true));
+        bus.onPause(4, 5);
+
+        assertEquals(Arrays.asList(MetricsEvent.FRAME), frames.types);
+        assertEquals(Arrays.asList(MetricsEvent.CYCLE, MetricsEvent.PAUSE), compressions.types);
+        assertEquals(Arrays.asList(4L, 5L), compressions.timestamps);
+    }
+
+    @Test
+    public void block_deliversEverythingToASlowConsumer() throws InterruptedException {
+        MetricsBus bus = new MetricsBus(TimeUnit.SECONDS.toNanos(5));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Recorder recorder = new Recorder();
+        CountDownLatch done = new CountDownLatch(50);
+        MetricsBus.Subscription subscription = bus.subscribe(MetricsEvent.CYCLE, event -> {
+            recorder.onEvent(event);
+            LockSupport.parkNanos(1_000_000L);
+            done.countDown();
+        }, executor, MetricsBus.Overflow.BLOCK, 4);
+
+        CompressionCycle cycle = new CompressionCycle();
+        for (int i = 0; i < 50; i++) {
+            bus.onCycle(cycle.set(i, i, i, i, 0.1f, 0f, true));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // The delivered count goes up just after the subscriber returns
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(50, subscription.getDelivered());
+        assertEquals(0, subscription.getDropped());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Long.valueOf(i), recorder.timestamps.get(i));
+        }
+    }
+
+    @Test
+    public void block_dropsAfterTheTimeoutSoThePublisherNeverStalls() {
+        MetricsBus bus = new MetricsBus(TIMEOUT_NANOS);
+        ManualExecutor stuck = new ManualExecutor();
+        Recorder recorder = new Recorder();
+        MetricsBus.Subscription subscription = bus.subscribe(MetricsEvent.FRAME, recorder, stuck,
+                MetricsBus.Overflow.BLOCK, 2);
+
+        // Returning at all shows the publisher gave up waiting on the full queue
+        TechniqueReport report = report(110f);
+        for (int i = 0; i < 4; i++) {
+            bus.publishFrame(i, report, 0);
+        }
+        assertEquals(2, subscription.getDropped());
+        assertEquals(0, subscription.getDelivered());
+
+        stuck.runAll();
+        assertEquals(2, subscription.getDelivered());
+        assertEquals(Arrays.asList(0L, 1L), recorder.timestamps);
+    }
+
+    @Test
+    public void cancelledSubscriptionStopsReceiving() {
+        MetricsBus bus = new MetricsBus(TIMEOUT_NANOS);
+        Recorder recorder = new Recorder();
+        MetricsBus.Subscription subscription = bus.subscribe(MetricsEvent.FRAME, recorder, Runnable::run,
+                MetricsBus.Overflow.LATEST, 1);
+
+        bus.publishFrame(1, report(110f), 0);
+        subscription.cancel();
+        bus.publishFrame(2, report(110f), 0);
+
+        assertEquals(Arrays.asList(1L), recorder.timestamps);
+    }
+
+    @Test
+    public void publish_doesNotAllocate() {
+        MetricsBus bus = new MetricsBus(TIMEOUT_NANOS);
+        float[] sink = new float[1];
+        bus.subscribe(MetricsEvent.FRAME, event -> sink[0] += event.getMetrics().getRate(), Runnable::run,
+                MetricsBus.Overflow.LATEST, 1);
+        bus.subscribe(MetricsEvent.FRAME | MetricsEvent.CYCLE, event -> sink[0] += event.getTimestampNanos(),
+                Runnable::run, MetricsBus.Overflow.DROP, 16);
+        TechniqueReport report = report(110f);
+        CompressionCycle cycle = new CompressionCycle();
+
+        AllocationAssert.assertNoAllocation(10000, i -> {
+            bus.publishFrame(i, report, i);
+            bus.onCycle(cycle.set(i, i, i, i, 0.1f, 0f, true));
+        });
+    }
+}
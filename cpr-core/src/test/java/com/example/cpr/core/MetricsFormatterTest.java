@@ -0,0 +1,60 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class MetricsFormatterTest {
+    private static String format(float depth, float rate, boolean good) {
+        char[] out = new char[MetricsFormatter.MAX_LENGTH];
+        int length = MetricsFormatter.format(MetricsFormatter.depthHundredths(depth),
+                MetricsFormatter.rateTenths(rate), good, out);
+        return new String(out, 0, length);
+    }
+
+    private static String expected(float depth, float rate, boolean good) {
+        return String.format(Locale.US, "Compression Depth: %.2f\nRate: %.1f compressions/min\nStatus: %s",
+                depth, rate, good ? "Good" : "Adjust Technique");
+    }
+
+    @Test
+    public void matchesStringFormat() {
+        float[] depths = {0f, 0.004f, 0.05f, 0.15f, 0.2f, 0.299f, 1.5f, 12.345f};
+        float[] rates = {0f, 0.04f, 9.96f, 100f, 110.25f, 119.94f, 1234.5f};
+        for (float depth : depths) {
+            for (float rate : rates) {
+                assertEquals(expected(depth, rate, true), format(depth, rate, true));
+                assertEquals(expected(depth, rate, false), format(depth, rate, false));
+            }
+        }
+    }
+
+    @Test
+    public void formatsNegativeValues() {
+        assertEquals(expected(-0.25f, -3.5f, false), format(-0.25f, -3.5f, false));
+    }
+
+    @Test
+    public void longestOutputFits() {
+        char[] out = new char[MetricsFormatter.MAX_LENGTH];
+        int length = MetricsFormatter.format(Integer.MIN_VALUE, Integer.MIN_VALUE, false,
+                TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS, out);
+        assertTrue(length <= MetricsFormatter.MAX_LENGTH);
+    }
+
+    @Test
+    public void statusNamesThePostureFault() {
+        char[] out = new char[MetricsFormatter.MAX_LENGTH];
+        int length = MetricsFormatter.format(20, 1100, false,
+                TechniqueReport.FAULT_ELBOWS_BENT | TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS, out);
+        assertTrue(new String(out, 0, length).endsWith("Status: Lock Your Elbows"));
+
+        length = MetricsFormatter.format(20, 1100, false, TechniqueReport.FAULT_SHOULDERS_NOT_OVER_HANDS, out);
+        assertTrue(new String(out, 0, length).endsWith("Status: Shoulders Over Hands"));
+
+        length = MetricsFormatter.format(20, 1100, false, TechniqueReport.FAULT_DEPTH_OR_RATE, out);
+        assertTrue(new String(out, 0, length).endsWith("Status: Adjust Technique"));
+    }
+}
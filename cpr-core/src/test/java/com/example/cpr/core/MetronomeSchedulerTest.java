@@ -0,0 +1,120 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetronomeSchedulerTest {
+    private static final int SAMPLE_RATE = 48_000;
+
+    // A click whose first sample is a marker, so onsets are easy to find
+    private static final short[] MARKER_CLICK = {Short.MAX_VALUE, 100, 50, 25};
+
+    private static List<Long> onsets(MetronomeScheduler scheduler, long frames, int... blockSizes) {
+        List<Long> onsets = new ArrayList<>();
+        short[] buffer = new short[4096];
+        long position = 0;
+        int block = 0;
+        while (position < frames) {
+            int length = blockSizes[block++ % blockSizes.length];
+            scheduler.render(buffer, 0, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == Short.MAX_VALUE && position + i < frames) {
+                    onsets.add(position + i);
+                }
+            }
+            position += length;
+        }
+        return onsets;
+    }
+
+    @Test
+    public void clickSynthRisesAndDecays() {
+        short[] click = ClickSynth.click(SAMPLE_RATE, 1000f, 20, 0.5f);
+        assertEquals(960, click.length);
+        assertEquals(0, click[0]);
+
+        int peak = 0;
+        for (short sample : click) {
+            peak = Math.max(peak, Math.abs(sample));
+        }
+        assertTrue(peak > Short.MAX_VALUE * 0.3f && peak <= Short.MAX_VALUE * 0.5f);
+
+        int tail = 0;
+        for (int i = click.length - 48; i < click.length; i++) {
+            tail = Math.max(tail, Math.abs(click[i]));
+        }
+        assertTrue(tail < peak * 0.05f);
+    }
+
+    @Test
+    public void beatsLandOnExactFramesWithoutDrift() {
+        // 110 bpm is 26181.8 frames per beat, so rounded intervals would drift
+        MetronomeScheduler scheduler = new MetronomeScheduler(SAMPLE_RATE, 110f, MARKER_CLICK);
+        List<Long> onsets = onsets(scheduler, SAMPLE_RATE * 600L, 192);
+
+        assertEquals(1100, onsets.size());
+        double beatFrames = SAMPLE_RATE * 60.0 / 110;
+        for (int k = 0; k < onsets.size(); k++) {
+            assertEquals(Math.round(k * beatFrames), (long) onsets.get(k));
+        }
+    }
+
+    @Test
+    public void blockSizeDoesNotChangeTheSchedule() {
+        List<Long> fixed = onsets(new MetronomeScheduler(SAMPLE_RATE, 110f, MARKER_CLICK),
+                SAMPLE_RATE * 30L, 256);
+        List<Long> uneven = onsets(new MetronomeScheduler(SAMPLE_RATE, 110f, MARKER_CLICK),
+                SAMPLE_RATE * 30L, 1, 480, 3, 4000, 97);
+        assertEquals(fixed, uneven);
+    }
+
+    @Test
+    public void clickSpanningBlocksIsWrittenWhole() {
+        short[] click = ClickSynth.click(SAMPLE_RATE, 1000f, 20, 0.5f);
+        MetronomeScheduler scheduler = new MetronomeScheduler(SAMPLE_RATE, 110f, click);
+        short[] first = new short[500];
+        short[] second = new short[500];
+        scheduler.render(first, 0, 500);
+        scheduler.render(second, 0, 500);
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(click[i], first[i]);
+        }
+        for (int i = 0; i < 460; i++) {
+            assertEquals(click[500 + i], second[i]);
+        }
+        for (int i = 460; i < 500; i++) {
+            assertEquals(0, second[i]);
+        }
+    }
+
+    @Test
+    public void tempoAndClickChangesApplyFromTheNextBeat() {
+        short[] other = {Short.MAX_VALUE, -1};
+        MetronomeScheduler scheduler = new MetronomeScheduler(SAMPLE_RATE, 120f, MARKER_CLICK);
+        short[] buffer = new short[10_000];
+        // First beat at 0, next due at 24000
+        scheduler.render(buffer, 0, 10_000);
+        scheduler.setBpm(100f);
+        scheduler.setClick(other);
+        assertEquals(24_000, scheduler.getNextBeatFrame());
+
+        short[] rest = new short[30_000];
+        scheduler.render(rest, 0, 30_000);
+        assertEquals(Short.MAX_VALUE, rest[14_000]);
+        assertEquals(-1, rest[14_001]);
+        assertEquals(24_000 + 28_800, scheduler.getNextBeatFrame());
+    }
+
+    @Test
+    public void cueFollowsTheTargetBand() {
+        assertEquals(MetronomeScheduler.Cue.ON_TARGET, MetronomeScheduler.Cue.forRate(0f, 100f, 120f));
+        assertEquals(MetronomeScheduler.Cue.SPEED_UP, MetronomeScheduler.Cue.forRate(92f, 100f, 120f));
+        assertEquals(MetronomeScheduler.Cue.ON_TARGET, MetronomeScheduler.Cue.forRate(110f, 100f, 120f));
+        assertEquals(MetronomeScheduler.Cue.SLOW_DOWN, MetronomeScheduler.Cue.forRate(131f, 100f, 120f));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class MotionGateTest {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    // Rows are padded, as camera Y planes often are
+    private static final int ROW_STRIDE = 704;
+    private static final long FRAME_NANOS = 33_000_000L;
+    private static final long IDLE_AFTER_NANOS = 2_000_000_000L;
+
+    private static MotionGate gate() {
+        return new MotionGate(16, 12, 4f, 10, IDLE_AFTER_NANOS);
+    }
+
+    // A textured background with an optional bright square at (squareX, 200)
+    private static ByteBuffer frame(int brightness, int squareX) {
+        ByteBuffer buffer = ByteBuffer.allocate(ROW_STRIDE * HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int luma = 60 + ((x / 40 + y / 40) % 2) * 40 + brightness;
+                if (squareX >= 0 && x >= squareX && x < squareX + 160 && y >= 200 && y < 360) {
+                    luma = 230;
+                }
+                buffer.put(y * ROW_STRIDE + x, (byte) Math.min(255, luma));
+            }
+            // Padding bytes change every frame and must be ignored
+            for (int x = WIDTH; x < ROW_STRIDE; x++) {
+                buffer.put(y * ROW_STRIDE + x, (byte) (brightness * 7 + x));
+            }
+        }
+        return buffer;
+    }
+
+    @Test
+    public void staticSceneGoesIdleAndDetectsOccasionally() {
+        MotionGate gate = gate();
+        ByteBuffer still = frame(0, -1);
+        int frames = (int) (2 * IDLE_AFTER_NANOS / FRAME_NANOS);
+        int detections = 0;
+        for (int i = 0; i < frames; i++) {
+            float motion = gate.measureMotion(still, WIDTH, HEIGHT, ROW_STRIDE);
+            assertEquals(0f, motion, 0f);
+            if (gate.onFrame(i * FRAME_NANOS, motion)) {
+                detections++;
+            }
+        }
+
+        assertEquals(MotionGate.State.IDLE, gate.getState());
+        // Every frame until idle, then one in ten
+        int activeFrames = (int) (IDLE_AFTER_NANOS / FRAME_NANOS) + 1;
+        assertEquals(activeFrames + (frames - activeFrames + 9) / 10, detections);
+    }
+
+    @Test
+    public void ignoresGlobalBrightnessChanges() {
+        MotionGate gate = gate();
+        gate.measureMotion(frame(0, -1), WIDTH, HEIGHT, ROW_STRIDE);
+        assertTrue(gate.measureMotion(frame(20, -1), WIDTH, HEIGHT, ROW_STRIDE) < 1f);
+    }
+
+    @Test
+    public void motionWakesWithinOneFrame() {
+        MotionGate gate = gate();
+        long time = 0;
+        ByteBuffer still = frame(0, -1);
+        while (gate.getState() != MotionGate.State.IDLE) {
+            gate.onFrame(time, gate.measureMotion(still, WIDTH, HEIGHT, ROW_STRIDE));
+            time += FRAME_NANOS;
+        }
+
+        // Someone steps into view
+        float motion = gate.measureMotion(frame(0, 100), WIDTH, HEIGHT, ROW_STRIDE);
+        assertTrue(gate.onFrame(time, motion));
+        assertEquals(MotionGate.State.ACQUIRING, gate.getState());
+
+        gate.onPoseResult(time, true);
+        assertEquals(MotionGate.State.ACTIVE, gate.getState());
+
+        // Compressions keep it active
+        for (int i = 1; i < 200; i++) {
+            time += FRAME_NANOS;
+            motion = gate.measureMotion(frame(0, 100 + (i % 2) * 40), WIDTH, HEIGHT, ROW_STRIDE);
+            assertTrue(gate.onFrame(time, motion));
+            gate.onPoseResult(time, true);
+        }
+        assertEquals(MotionGate.State.ACTIVE, gate.getState());
+
+        // Losing the pose while still moving goes back to acquiring
+        gate.onPoseResult(time, false);
+        assertEquals(MotionGate.State.ACQUIRING, gate.getState());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QualityGovernorTest {
+    private static final long MS = 1_000_000L;
+
+    private static QualityGovernor governor() {
+        return new QualityGovernor(80 * MS, 25 * MS, 2000 * MS, 10);
+    }
+
+    // Feeds detections with a fixed latency, back to back, and returns the time after the last one
+    private static long feed(QualityGovernor governor, long latency, int count, long now) {
+        for (int i = 0; i < count; i++) {
+            now += latency;
+            governor.onDetection(latency, now);
+        }
+        return now;
+    }
+
+    @Test
+    public void degradesUnderSustainedLatency() {
+        QualityGovernor governor = governor();
+        long now = feed(governor, 50 * MS, 100, 0);
+        assertEquals(QualityGovernor.Mode.ACCURATE, governor.getMode());
+
+        feed(governor, 120 * MS, 30, now);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+    }
+
+    @Test
+    public void reportsTheMeanLatencyThatTriggeredTheSwitch() {
+        QualityGovernor governor = governor();
+        long now = feed(governor, 50 * MS, 100, 0);
+        assertEquals(0, governor.getLastSwitchMeanLatencyNanos());
+
+        // The fifth slow detection tips the window mean over the degrade latency
+        feed(governor, 120 * MS, 5, now);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+        assertEquals(85 * MS, governor.getLastSwitchMeanLatencyNanos());
+        assertFalse(governor.wasLastSwitchThermal());
+        assertEquals(0, governor.getMeanLatencyNanos());
+    }
+
+    @Test
+    public void reportsThermalSwitches() {
+        QualityGovernor governor = governor();
+        long now = feed(governor, 30 * MS, 3, 0);
+        governor.onThermalStatus(QualityGovernor.THERMAL_SEVERE);
+        feed(governor, 30 * MS, 1, now);
+
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+        assertTrue(governor.wasLastSwitchThermal());
+        assertEquals(30 * MS, governor.getLastSwitchMeanLatencyNanos());
+    }
+
+    @Test
+    public void ignoresShortSpikes() {
+        QualityGovernor governor = governor();
+        long now = feed(governor, 40 * MS, 60, 0);
+        now = feed(governor, 300 * MS, 1, now);
+        feed(governor, 40 * MS, 20, now);
+
+        assertEquals(QualityGovernor.Mode.ACCURATE, governor.getMode());
+    }
+
+    @Test
+    public void doesNotFlapBetweenThresholds() {
+        QualityGovernor governor = governor();
+        long now = feed(governor, 120 * MS, 30, 0);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+
+        // Fast detector sits between the thresholds, so it stays fast
+        feed(governor, 40 * MS, 500, now);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+    }
+
+    @Test
+    public void recoversOnlyAfterDwellTime() {
+        QualityGovernor governor = governor();
+        long now = feed(governor, 120 * MS, 30, 0);
+        now = feed(governor, 10 * MS, 10, now);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+
+        feed(governor, 10 * MS, 300, now);
+        assertEquals(QualityGovernor.Mode.ACCURATE, governor.getMode());
+    }
+
+    @Test
+    public void thermalThrottlingForcesFastAndBlocksRecovery() {
+        QualityGovernor governor = governor();
+        governor.onThermalStatus(QualityGovernor.THERMAL_SEVERE);
+        long now = feed(governor, 10 * MS, 1, 0);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+
+        governor.onThermalStatus(QualityGovernor.THERMAL_MODERATE);
+        now = feed(governor, 10 * MS, 500, now);
+        assertEquals(QualityGovernor.Mode.FAST, governor.getMode());
+
+        governor.onThermalStatus(QualityGovernor.THERMAL_NONE);
+        feed(governor, 10 * MS, 10, now);
+        assertEquals(QualityGovernor.Mode.ACCURATE, governor.getMode());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RegionOfInterestTest {
+    private static final int SENSOR_WIDTH = 640;
+    private static final int SENSOR_HEIGHT = 480;
+
+    private static LandmarkFrame torso(float likelihood) {
+        LandmarkFrame frame = new LandmarkFrame();
+        frame.clear(0);
+        frame.set(LandmarkFrame.LEFT_SHOULDER, 0.40f, 0.30f, likelihood);
+        frame.set(LandmarkFrame.RIGHT_SHOULDER, 0.60f, 0.30f, likelihood);
+        frame.set(LandmarkFrame.LEFT_ELBOW, 0.42f, 0.45f, likelihood);
+        frame.set(LandmarkFrame.RIGHT_ELBOW, 0.58f, 0.45f, likelihood);
+        frame.set(LandmarkFrame.LEFT_WRIST, 0.49f, 0.60f, likelihood);
+        frame.set(LandmarkFrame.RIGHT_WRIST, 0.51f, 0.60f, likelihood);
+        return frame;
+    }
+
+    // Where a full-frame upright point lands in the sensor image, in pixels
+    private static float[] uprightToSensor(int rotation, float u, float v) {
+        switch (rotation) {
+            case 90: return new float[]{v * SENSOR_WIDTH, (1 - u) * SENSOR_HEIGHT};
+            case 180: return new float[]{(1 - u) * SENSOR_WIDTH, (1 - v) * SENSOR_HEIGHT};
+            case 270: return new float[]{(1 - v) * SENSOR_WIDTH, u * SENSOR_HEIGHT};
+            default: return new float[]{u * SENSOR_WIDTH, v * SENSOR_HEIGHT};
+        }
+    }
+
+    // What the detector reports for a crop-relative sensor pixel once the crop is rotated upright
+    private static float[] cropToUpright(int rotation, float x, float y, int width, int height) {
+        switch (rotation) {
+            case 90: return new float[]{height - y, x, height, width};
+            case 180: return new float[]{width - x, height - y, width, height};
+            case 270: return new float[]{y, width - x, height, width};
+            default: return new float[]{x, y, width, height};
+        }
+    }
+
+    @Test
+    public void cropLandmarksMapBackToFullFrame() {
+        RegionOfInterest roi = new RegionOfInterest(0.25f, 0.3f, 0.8f);
+        LandmarkFrame frame = torso(0.95f);
+        assertTrue(roi.update(frame));
+
+        int[] rect = new int[4];
+        float[] region = new float[4];
+        for (int rotation : new int[]{0, 90, 180, 270}) {
+            roi.toSensorRect(rotation, SENSOR_WIDTH, SENSOR_HEIGHT, rect);
+            assertEquals(0, rect[0] % 2);
+            assertEquals(0, rect[1] % 2);
+            assertEquals(0, rect[2] % 2);
+            assertEquals(0, rect[3] % 2);
+            RegionOfInterest.sensorRectToUpright(rotation, SENSOR_WIDTH, SENSOR_HEIGHT, rect, region);
+
+            for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+                float[] sensor = uprightToSensor(rotation, frame.getX(landmark), frame.getY(landmark));
+                float cropX = sensor[0] - rect[0];
+                float cropY = sensor[1] - rect[1];
+                assertTrue(cropX >= 0 && cropX <= rect[2] && cropY >= 0 && cropY <= rect[3]);
+
+                float[] detected = cropToUpright(rotation, cropX, cropY, rect[2], rect[3]);
+                float mappedX = region[0] + detected[0] / detected[2] * region[2];
+                float mappedY = region[1] + detected[1] / detected[3] * region[3];
+                assertEquals("rotation " + rotation, frame.getX(landmark), mappedX, 1e-4f);
+                assertEquals("rotation " + rotation, frame.getY(landmark), mappedY, 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void cropIsSmallerThanFrame() {
+        RegionOfInterest roi = new RegionOfInterest(0.25f, 0.3f, 0.8f);
+        roi.update(torso(0.95f));
+        int[] rect = new int[4];
+        roi.toSensorRect(0, SENSOR_WIDTH, SENSOR_HEIGHT, rect);
+
+        assertTrue(rect[2] * rect[3] < SENSOR_WIDTH * SENSOR_HEIGHT / 2);
+    }
+
+    @Test
+    public void lowConfidenceFallsBackToFullFrame() {
+        RegionOfInterest roi = new RegionOfInterest(0.25f, 0.3f, 0.8f);
+        roi.update(torso(0.95f));
+        assertFalse(roi.update(torso(0.5f)));
+
+        int[] rect = new int[4];
+        roi.toSensorRect(90, SENSOR_WIDTH, SENSOR_HEIGHT, rect);
+        assertArrayEquals(new int[]{0, 0, SENSOR_WIDTH, SENSOR_HEIGHT}, rect);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ReplayEngineTest {
+    private static final int SECONDS = 60;
+
+    // Compressions of the given depth and rate for a minute, hands the given distance apart
+    private static ParameterSweep.AnnotatedTrace trace(float depth, float rate, float handSeparation) {
+        int frames = (int) (SECONDS * 1_000_000_000L / SyntheticTrace.FRAME_INTERVAL_NANOS);
+        SyntheticTrace trace = new SyntheticTrace.Builder()
+                .rate(rate).depth(depth).handSeparation(handSeparation).build(frames);
+        // Every full cycle in the trace is one compression
+        return new ParameterSweep.AnnotatedTrace(trace.toPoseTrace(), (int) (SECONDS * rate / 60));
+    }
+
+    @Test
+    public void replayIsDeterministic() {
+        ParameterSweep.AnnotatedTrace annotated = trace(0.2f, 110f, 0.02f);
+
+        ReplayEngine.Result first = ReplayEngine.replay(annotated.getTrace(),
+                AnalyserThresholds.DEFAULT, CrossingRateEstimator::new);
+        ReplayEngine.Result second = ReplayEngine.replay(annotated.getTrace(),
+                AnalyserThresholds.DEFAULT, CrossingRateEstimator::new);
+
+        assertEquals(annotated.getExpectedCompressions(), first.getCompressions());
+        assertEquals(first.getCompressions(), second.getCompressions());
+        assertEquals(first.getMeanRate(), second.getMeanRate(), 0f);
+        assertEquals(110f, first.getMeanRate(), 5f);
+    }
+
+    @Test
+    public void sweepRanksThresholdsAgainstAnnotations() {
+        // Shallow compressions and a wide grip that the default thresholds reject
+        List<ParameterSweep.AnnotatedTrace> traces = Arrays.asList(
+                trace(0.2f, 110f, 0.02f),
+                trace(0.12f, 100f, 0.02f),
+                trace(0.2f, 120f, 0.14f));
+        List<AnalyserThresholds> candidates = ParameterSweep.grid(
+                new float[]{0.05f, 0.1f, 0.15f, 0.2f},
+                new long[]{200_000_000L, 300_000_000L, 600_000_000L},
+                new float[]{0.1f, 0.15f, 0.2f});
+        candidates.add(AnalyserThresholds.DEFAULT);
+
+        List<ParameterSweep.Result> ranked = ParameterSweep.run(traces, candidates,
+                CrossingRateEstimator::new, ForkJoinPool.commonPool());
+
+        assertEquals(candidates.size(), ranked.size());
+        ParameterSweep.Result best = ranked.get(0);
+        assertEquals(0, best.getTotalError());
+        assertTrue(best.getThresholds().getMinCompressionDistance() < 0.12f);
+        assertTrue(best.getThresholds().getMaxHandSeparation() > 0.14f);
+        for (int i = 1; i < ranked.size(); i++) {
+            assertTrue(ranked.get(i - 1).getTotalError() <= ranked.get(i).getTotalError());
+        }
+
+        for (ParameterSweep.Result result : ranked) {
+            if (result.getThresholds() == AnalyserThresholds.DEFAULT) {
+                assertTrue(result.getTotalError() > 0);
+                assertEquals(traces.get(0).getExpectedCompressions(), result.getCompressions(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResolutionTunerTest {
+    private static final int[][] CANDIDATES = {{320, 240}, {640, 480}, {1280, 960}};
+    private static final int WARMUP = 5;
+
+    // Loose enough that the noisiest candidates below still count as holding still
+    private static final float MAX_STILL_MOTION = 0.1f;
+
+    private static ResolutionTuner tuner() {
+        return new ResolutionTuner(CANDIDATES, 0.004f, 40, WARMUP, 200, MAX_STILL_MOTION);
+    }
+
+    // Feeds frames with the given wrist noise until the tuner asks for a switch
+    private static void runCandidate(ResolutionTuner tuner, float noise, long latencyNanos, Random random) {
+        LandmarkFrame frame = new LandmarkFrame();
+        for (int i = 0; i < 1000; i++) {
+            // Hands drift slowly, which the second difference ignores
+            float drift = i * 0.001f;
+            frame.clear(i * 33_000_000L);
+            frame.set(LandmarkFrame.LEFT_WRIST, 0.5f + drift + noise * (float) random.nextGaussian(),
+                    0.6f + noise * (float) random.nextGaussian(), 0.9f);
+            frame.set(LandmarkFrame.RIGHT_WRIST, 0.52f + drift + noise * (float) random.nextGaussian(),
+                    0.6f + noise * (float) random.nextGaussian(), 0.9f);
+            if (tuner.onFrame(frame, true, latencyNanos)) {
+                return;
+            }
+        }
+        fail("Candidate never finished");
+    }
+
+    @Test
+    public void picksSmallestResolutionWithinBudget() {
+        ResolutionTuner tuner = tuner();
+        Random random = new Random(1);
+
+        assertArrayEquals(CANDIDATES[0], tuner.getCurrentCandidate());
+        runCandidate(tuner, 0.01f, 10_000_000L, random);
+        assertFalse(tuner.isDone());
+        assertArrayEquals(CANDIDATES[1], tuner.getCurrentCandidate());
+        runCandidate(tuner, 0.002f, 20_000_000L, random);
+
+        assertTrue(tuner.isDone());
+        assertArrayEquals(CANDIDATES[1], tuner.getChosen());
+        assertEquals(0.01f, tuner.getJitter(0), 0.002f);
+        assertEquals(0.002f, tuner.getJitter(1), 0.0005f);
+        assertTrue(Float.isNaN(tuner.getJitter(2)));
+        assertEquals(20_000_000L, tuner.getMeanLatencyNanos(1));
+    }
+
+    @Test
+    public void fallsBackToSteadiestWhenNoneFitsBudget() {
+        ResolutionTuner tuner = tuner();
+        Random random = new Random(2);
+        runCandidate(tuner, 0.02f, 10_000_000L, random);
+        runCandidate(tuner, 0.008f, 20_000_000L, random);
+        runCandidate(tuner, 0.01f, 40_000_000L, random);
+
+        assertTrue(tuner.isDone());
+        assertArrayEquals(CANDIDATES[1], tuner.getChosen());
+    }
+
+    @Test
+    public void givesUpOnCandidateWithoutWrists() {
+        ResolutionTuner tuner = tuner();
+        LandmarkFrame empty = new LandmarkFrame();
+        empty.clear(0);
+        int frames = 0;
+        while (!tuner.onFrame(empty, true, 0)) {
+            frames++;
+        }
+
+        assertEquals(WARMUP + 200 - 1, frames);
+        assertTrue(Float.isInfinite(tuner.getJitter(0)));
+        assertArrayEquals(CANDIDATES[1], tuner.getCurrentCandidate());
+    }
+
+    @Test
+    public void compressionsAreNotMeasuredAsJitter() {
+        ResolutionTuner tuner = new ResolutionTuner(CANDIDATES, 0.004f, 40, WARMUP, 200, 0.03f);
+        LandmarkFrame frame = new LandmarkFrame();
+        // 110 compressions/min, 0.2 deep, detected at 15 fps
+        int frames = 0;
+        for (int candidate = 0; candidate < CANDIDATES.length; candidate++) {
+            do {
+                double phase = 2 * Math.PI * (110 / 60.0) * frames / 15.0;
+                float wristY = (float) (0.5 + 0.1 * Math.cos(phase));
+                frame.clear(frames * 66_000_000L);
+                frame.set(LandmarkFrame.LEFT_WRIST, 0.5f, wristY, 0.9f);
+                frame.set(LandmarkFrame.RIGHT_WRIST, 0.52f, wristY, 0.9f);
+                frames++;
+            } while (!tuner.onFrame(frame, true, 0));
+        }
+
+        assertTrue(tuner.isDone());
+        assertFalse(tuner.isMeasured());
+        assertNull(tuner.getChosen());
+    }
+
+    @Test
+    public void nobodyInViewChoosesNothing() {
+        ResolutionTuner tuner = tuner();
+        LandmarkFrame empty = new LandmarkFrame();
+        empty.clear(0);
+        while (!tuner.isDone()) {
+            tuner.onFrame(empty, true, 0);
+        }
+
+        assertFalse(tuner.isMeasured());
+        assertNull(tuner.getChosen());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.cpr.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SessionRecorderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void fillFrame(LandmarkFrame frame, int index) {
+        frame.clear(1_000_000_000L + index * 33_000_000L);
+        for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+            // Drop the elbows on odd frames
+            if (index % 2 == 1 && (landmark == LandmarkFrame.LEFT_ELBOW
+                    || landmark == LandmarkFrame.RIGHT_ELBOW)) {
+                continue;
+            }
+            frame.set(landmark, index * 0.001f + landmark, landmark * 0.1f, 0.9f);
+        }
+    }
+
+    private static void record(SessionRecorder recorder, int frames) throws IOException {
+        LandmarkFrame frame = new LandmarkFrame();
+        for (int i = 0; i < frames; i++) {
+            fillFrame(frame, i);
+            recorder.append(frame, new CPRMetrics(i * 0.01f, 100f + i, i % 3 == 0, true), i % 2 == 0);
+        }
+    }
+
+    @Test
+    public void roundTripsFramesAcrossChunks() throws IOException {
+        File file = folder.newFile();
+        try (SessionRecorder recorder = new SessionRecorder(file, 1234L, 7)) {
+            record(recorder, 50);
+        }
+        assertEquals(SessionRecorder.HEADER_SIZE + 50L * SessionRecorder.RECORD_SIZE, file.length());
+
+        LandmarkFrame expected = new LandmarkFrame();
+        LandmarkFrame actual = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        try (SessionReader reader = new SessionReader(file)) {
+            assertEquals(50, reader.getFrameCount());
+            assertEquals(1234L, reader.getStartTimeMillis());
+            // Seek backwards to check frames are independent of read order
+            for (int i = 49; i >= 0; i--) {
+                fillFrame(expected, i);
+                boolean detected = reader.read(i, actual, metrics);
+
+                assertEquals(i % 2 == 0, detected);
+                assertEquals(expected.getTimestampNanos(), actual.getTimestampNanos());
+                assertEquals(expected.getTimestampNanos(), reader.getTimestampNanos(i));
+                for (int landmark = 0; landmark < LandmarkFrame.LANDMARK_COUNT; landmark++) {
+                    assertEquals(expected.isPresent(landmark), actual.isPresent(landmark));
+                    if (expected.isPresent(landmark)) {
+                        assertEquals(expected.getX(landmark), actual.getX(landmark), 0f);
+                        assertEquals(expected.getY(landmark), actual.getY(landmark), 0f);
+                        assertEquals(expected.getLikelihood(landmark), actual.getLikelihood(landmark), 0f);
+                    }
+                }
+                assertEquals(i * 0.01f, metrics.getDepth(), 0f);
+                assertEquals(100f + i, metrics.getRate(), 0f);
+                assertEquals(i % 3 == 0, metrics.isGoodTechnique());
+                assertTrue(metrics.areHandsInPosition());
+            }
+        }
+    }
+
+    @Test
+    public void readsSessionThatWasNeverClosed() throws IOException {
+        File file = folder.newFile();
+        SessionRecorder recorder = new SessionRecorder(file, 0L, 100);
+        record(recorder, 10);
+
+        // The mapped chunk extends past the last frame until the recorder is closed
+        assertTrue(file.length() > SessionRecorder.HEADER_SIZE + 10L * SessionRecorder.RECORD_SIZE);
+        try (SessionReader reader = new SessionReader(file)) {
+            assertEquals(10, reader.getFrameCount());
+        }
+        recorder.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[SessionRecorder.HEADER_SIZE]);
+        }
+        new SessionReader(file).close();
+    }
+
+    @Test
+    public void pruneKeepsTheNewestSessionsWithinBothLimits() throws IOException {
+        File directory = folder.newFolder();
+        File[] sessions = new File[5];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = new File(directory, "session-" + i + SessionRecorder.FILE_EXTENSION);
+            try (FileOutputStream out = new FileOutputStream(sessions[i])) {
+                out.write(new byte[100]);
+            }
+            assertTrue(sessions[i].setLastModified(1_000_000L * (i + 1)));
+        }
+        File other = new File(directory, "notes.txt");
+        assertTrue(other.createNewFile());
+
+        assertEquals(1, SessionRecorder.prune(directory, 4, Long.MAX_VALUE));
+        assertFalse(sessions[0].exists());
+
+        assertEquals(2, SessionRecorder.prune(directory, 4, 250));
+        assertFalse(sessions[1].exists());
+        assertFalse(sessions[2].exists());
+        assertTrue(sessions[3].exists());
+        assertTrue(sessions[4].exists());
+        assertTrue(other.exists());
+    }
+}
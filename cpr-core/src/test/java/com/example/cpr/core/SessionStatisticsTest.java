@@ -0,0 +1,136 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class SessionStatisticsTest {
+    private static final long FRAME_INTERVAL_NANOS = SyntheticTrace.FRAME_INTERVAL_NANOS;
+
+    private static SessionStatistics statistics() {
+        return new SessionStatistics(0.15f, 0.30f, CPRAnalyser.MIN_TARGET_RATE, CPRAnalyser.MAX_TARGET_RATE);
+    }
+
+    private static void analyse(SessionStatistics statistics, SyntheticTrace trace) {
+        CPRAnalyser analyser = new CPRAnalyser();
+        analyser.setCycleListener(statistics);
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        for (int i = 0; i < trace.length; i++) {
+            trace.fill(i, frame);
+            analyser.analyze(frame, metrics);
+        }
+        analyser.endSession(frame.getTimestampNanos());
+    }
+
+    @Test
+    public void quantileSketchTracksExactQuantiles() {
+        Random random = new Random(11);
+        double[] quantiles = {0.1, 0.5, 0.9};
+        P2Quantile[] sketches = new P2Quantile[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            sketches[i] = new P2Quantile(quantiles[i]);
+        }
+        double[] samples = new double[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            // Skewed, like rates with occasional slow compressions
+            samples[i] = 100 + 10 * random.nextGaussian() + (random.nextInt(10) == 0 ? 40 * random.nextDouble() : 0);
+            for (P2Quantile sketch : sketches) {
+                sketch.add(samples[i]);
+            }
+        }
+        Arrays.sort(samples);
+        for (int i = 0; i < quantiles.length; i++) {
+            double exact = samples[(int) (quantiles[i] * samples.length)];
+            assertEquals(exact, sketches[i].getQuantile(), 0.5);
+        }
+    }
+
+    @Test
+    public void quantileIsExactForFewSamples() {
+        P2Quantile median = new P2Quantile(0.5);
+        assertTrue(Double.isNaN(median.getQuantile()));
+        median.add(3);
+        median.add(1);
+        median.add(2);
+        assertEquals(2, median.getQuantile(), 0);
+    }
+
+    @Test
+    public void summarisesSteadyCompressions() {
+        SessionStatistics statistics = statistics();
+        analyse(statistics, new SyntheticTrace.Builder().build(900));
+        SessionStatistics.Summary summary = statistics.snapshot(new SessionStatistics.Summary());
+
+        assertTrue(summary.getCompressions() >= 50);
+        assertEquals(summary.getCompressions() - 1, summary.getRateCount());
+        assertEquals(110, summary.getMeanRate(), 3);
+        assertEquals(110, summary.getRateP50(), 3);
+        assertTrue(summary.getRateP10() <= summary.getRateP50() && summary.getRateP50() <= summary.getRateP90());
+        assertEquals(0.2, summary.getMeanDepth(), 0.01);
+        assertEquals(0.2, summary.getDepthP50(), 0.01);
+        assertTrue(summary.getDepthVariance() < 1e-4);
+        assertEquals(100, summary.getInTargetPercent(), 0);
+        assertEquals(0, summary.getLongestPauseNanos());
+    }
+
+    @Test
+    public void slowCompressionsAreOutOfBandAndPausesRecorded() {
+        SessionStatistics statistics = statistics();
+        // About four seconds still at rest in the middle
+        analyse(statistics, new SyntheticTrace.Builder().rate(90).rest(400, 520).build(900));
+        SessionStatistics.Summary summary = statistics.snapshot(new SessionStatistics.Summary());
+
+        assertEquals(90, summary.getRateP50(), 3);
+        // The first compression and the one after the pause have no rate, and aren't counted as in band
+        assertEquals(0, summary.getInTargetPercent(), 0);
+        assertEquals(120 * FRAME_INTERVAL_NANOS, summary.getLongestPauseNanos(), 40 * FRAME_INTERVAL_NANOS);
+        assertEquals(summary.getCompressions() - 2, summary.getRateCount());
+    }
+
+    @Test
+    public void trailingPauseIsRecordedAtSessionEnd() {
+        SessionStatistics statistics = statistics();
+        // Hands still at rest for the last ten seconds
+        analyse(statistics, new SyntheticTrace.Builder().rest(600, 900).build(900));
+        SessionStatistics.Summary summary = statistics.snapshot(new SessionStatistics.Summary());
+
+        assertEquals(300 * FRAME_INTERVAL_NANOS, summary.getLongestPauseNanos(), 20 * FRAME_INTERVAL_NANOS);
+        assertEquals(100, summary.getInTargetPercent(), 0);
+    }
+
+    @Test
+    public void snapshotsAreConsistentWhileUpdating() throws InterruptedException {
+        SessionStatistics statistics = statistics();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean inconsistent = new AtomicBoolean(false);
+        // Every cycle has the same depth, so a torn read would show up as a mean that isn't 0.2
+        Thread reader = new Thread(() -> {
+            SessionStatistics.Summary summary = new SessionStatistics.Summary();
+            while (running.get()) {
+                statistics.snapshot(summary);
+                if (summary.getCompressions() > 0 && (Math.abs(summary.getMeanDepth() - 0.2) > 1e-6
+                        || summary.getRateCount() != summary.getCompressions() - 1)) {
+                    inconsistent.set(true);
+                }
+            }
+        });
+        reader.start();
+
+        CompressionCycle cycle = new CompressionCycle();
+        for (int i = 0; i < 200_000; i++) {
+            long start = i * 545_000_000L;
+            statistics.onCycle(cycle.set(i, start, start + 270_000_000L, start + 500_000_000L,
+                    0.2f, 0f, true));
+        }
+        running.set(false);
+        reader.join();
+
+        assertFalse(inconsistent.get());
+        assertEquals(200_000, statistics.snapshot(new SessionStatistics.Summary()).getCompressions());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.cpr.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SlidingDftRateEstimatorTest {
+    // Feeds a compression-shaped wrist signal with jittered frame times and returns the final rate
+    private static float estimate(RateEstimator estimator, double rateBpm, double fps, double seconds) {
+        Random random = new Random(7);
+        double frameInterval = 1.0 / fps;
+        for (double t = 0; t < seconds; t += frameInterval * (0.8 + 0.4 * random.nextDouble())) {
+            float wristY = SyntheticTrace.wristY(rateBpm, SyntheticTrace.COMPRESSION_DEPTH, t)
+                    + (float) (0.005 * random.nextGaussian());
+            estimator.onSample((long) (t * 1e9), wristY);
+        }
+        return estimator.getRate();
+    }
+
+    @Test
+    public void tracksRateAtLowFrameRates() {
+        for (double rate : new double[]{90, 110, 130}) {
+            assertEquals(rate, estimate(new SlidingDftRateEstimator(), rate, 12, 20), 3);
+            assertEquals(rate, estimate(new SlidingDftRateEstimator(), rate, 10, 20), 3);
+        }
+    }
+
+    @Test
+    public void reportsNoRateWithoutMovement() {
+        SlidingDftRateEstimator estimator = new SlidingDftRateEstimator();
+        for (int i = 0; i < 300; i++) {
+            estimator.onSample(i * 50_000_000L, 0.5f);
+        }
+        assertEquals(0f, estimator.getRate(), 0f);
+    }
+
+    @Test
+    public void restartsAfterLongGap() {
+        SlidingDftRateEstimator estimator = new SlidingDftRateEstimator();
+        estimate(estimator, 110, 15, 10);
+        assertTrue(estimator.getRate() > 0);
+
+        estimator.onSample(60_000_000_000L, 0.5f);
+        assertEquals(0f, estimator.getRate(), 0f);
+    }
+
+    @Test
+    public void staysAccurateOverLongSessions() {
+        assertEquals(110, estimate(new SlidingDftRateEstimator(), 110, 15, 30 * 60), 3);
+    }
+
+    @Test
+    public void analyserUsesSelectedEstimator() {
+        CPRAnalyser analyser = new CPRAnalyser(new SlidingDftRateEstimator());
+        LandmarkFrame frame = new LandmarkFrame();
+        CPRMetrics metrics = new CPRMetrics();
+        SyntheticTrace trace = new SyntheticTrace.Builder().rate(100).frameInterval(83_333_333L).build(150);
+        for (int i = 0; i < trace.length; i++) {
+            trace.fill(i, frame);
+            analyser.analyze(frame, metrics);
+        }
+        assertEquals(100f, metrics.getRate(), 3f);
+    }
+}
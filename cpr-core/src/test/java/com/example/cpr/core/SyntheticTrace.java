@@ -0,0 +1,176 @@
+package com.example.cpr.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic side-on compressions shared by the tests and the benchmarks: shoulders fixed above
+// the hands, and both wrists following a raised cosine down from rest. Wrist positions are
+// precomputed so benchmarks only measure the code under test.
+public final class SyntheticTrace {
+    public enum Scenario {
+        // Clean 110 compressions/min
+        STEADY,
+        // 110 compressions/min with landmark jitter
+        NOISY,
+        // Hands drift apart for twice the analyser's grace period every five seconds, forcing resets
+        HANDS_LEAVING
+    }
+
+    static final long FRAME_INTERVAL_NANOS = 33_000_000L;
+    static final float RATE_BPM = 110f;
+    static final float RESTING_WRIST_Y = 0.4f;
+    static final float COMPRESSION_DEPTH = 0.2f;
+    static final float HAND_SEPARATION = 0.02f;
+    // Far beyond any hand separation threshold
+    static final float HANDS_APART_SEPARATION = 0.6f;
+    private static final float HAND_CENTRE_X = 0.51f;
+    private static final float NOISE = 0.01f;
+    private static final double HANDS_LEAVING_PERIOD_SECONDS = 5.0;
+    private static final double HANDS_APART_SECONDS = 2 * CPRAnalyser.HANDS_APART_GRACE_NANOS / 1e9;
+
+    final int length;
+    final long frameIntervalNanos;
+    final float[] leftWristX;
+    final float[] leftWristY;
+    final float[] rightWristX;
+    final float[] rightWristY;
+
+    private SyntheticTrace(int length, long frameIntervalNanos) {
+        this.length = length;
+        this.frameIntervalNanos = frameIntervalNanos;
+        leftWristX = new float[length];
+        leftWristY = new float[length];
+        rightWristX = new float[length];
+        rightWristY = new float[length];
+    }
+
+    static SyntheticTrace generate(Scenario scenario, int frames, int fps, long seed) {
+        Builder builder = new Builder().frameInterval(1_000_000_000L / fps);
+        if (scenario == Scenario.NOISY) {
+            builder.noise(NOISE, seed);
+        } else if (scenario == Scenario.HANDS_LEAVING) {
+            int period = (int) Math.round(HANDS_LEAVING_PERIOD_SECONDS * fps);
+            int apart = (int) Math.ceil(HANDS_APART_SECONDS * fps);
+            for (int end = period; end - apart < frames; end += period) {
+                builder.handsApart(end - apart, end);
+            }
+        }
+        return builder.build(frames);
+    }
+
+    // Wrist height the given time into compressions
+    static float wristY(double rateBpm, float depth, double seconds) {
+        double phase = 2 * Math.PI * (rateBpm / 60.0) * seconds;
+        return (float) (RESTING_WRIST_Y + depth / 2 * (1 - Math.cos(phase)));
+    }
+
+    // The trace's shoulders with the given wrists, for poses built frame by frame
+    static void fillPose(LandmarkFrame out, long timestampNanos, float leftWristX, float leftWristY,
+                         float rightWristX, float rightWristY) {
+        out.clear(timestampNanos);
+        out.set(LandmarkFrame.LEFT_SHOULDER, 0.45f, 0.1f, 0.99f);
+        out.set(LandmarkFrame.RIGHT_SHOULDER, 0.55f, 0.1f, 0.99f);
+        out.set(LandmarkFrame.LEFT_WRIST, leftWristX, leftWristY, 0.99f);
+        out.set(LandmarkFrame.RIGHT_WRIST, rightWristX, rightWristY, 0.99f);
+    }
+
+    // Frames past the end of the trace repeat it with timestamps that keep increasing
+    void fill(long frameIndex, LandmarkFrame out) {
+        int i = (int) (frameIndex % length);
+        fillPose(out, frameIndex * frameIntervalNanos,
+                leftWristX[i], leftWristY[i], rightWristX[i], rightWristY[i]);
+    }
+
+    PoseTrace toPoseTrace() {
+        PoseTrace.Builder builder = new PoseTrace.Builder(length);
+        LandmarkFrame frame = new LandmarkFrame();
+        for (int i = 0; i < length; i++) {
+            fill(i, frame);
+            builder.add(frame);
+        }
+        return builder.build();
+    }
+
+    long getDurationNanos() {
+        return length * frameIntervalNanos;
+    }
+
+    static final class Builder {
+        private double rateBpm = RATE_BPM;
+        private float depth = COMPRESSION_DEPTH;
+        private float handSeparation = HAND_SEPARATION;
+        private long frameIntervalNanos = FRAME_INTERVAL_NANOS;
+        private float noise;
+        private long seed;
+        // Frame ranges, end exclusive
+        private final List<int[]> rests = new ArrayList<>();
+        private final List<int[]> handsApart = new ArrayList<>();
+
+        Builder rate(double rateBpm) {
+            this.rateBpm = rateBpm;
+            return this;
+        }
+
+        Builder depth(float depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        Builder handSeparation(float handSeparation) {
+            this.handSeparation = handSeparation;
+            return this;
+        }
+
+        Builder frameInterval(long frameIntervalNanos) {
+            this.frameIntervalNanos = frameIntervalNanos;
+            return this;
+        }
+
+        // Gaussian jitter on each wrist height, left then right every frame
+        Builder noise(float sigma, long seed) {
+            this.noise = sigma;
+            this.seed = seed;
+            return this;
+        }
+
+        // Hands stay in position but still at rest
+        Builder rest(int fromFrame, int toFrame) {
+            rests.add(new int[]{fromFrame, toFrame});
+            return this;
+        }
+
+        Builder handsApart(int fromFrame, int toFrame) {
+            handsApart.add(new int[]{fromFrame, toFrame});
+            return this;
+        }
+
+        SyntheticTrace build(int frames) {
+            SyntheticTrace trace = new SyntheticTrace(frames, frameIntervalNanos);
+            Random random = new Random(seed);
+            for (int i = 0; i < frames; i++) {
+                float y = within(rests, i) ? RESTING_WRIST_Y
+                        : wristY(rateBpm, depth, i * frameIntervalNanos / 1e9);
+                float separation = within(handsApart, i) ? HANDS_APART_SEPARATION : handSeparation;
+                trace.leftWristX[i] = HAND_CENTRE_X - separation / 2;
+                trace.rightWristX[i] = HAND_CENTRE_X + separation / 2;
+                trace.leftWristY[i] = y + gaussian(random);
+                trace.rightWristY[i] = y + gaussian(random);
+            }
+            return trace;
+        }
+
+        private float gaussian(Random random) {
+            return noise == 0f ? 0f : (float) random.nextGaussian() * noise;
+        }
+
+        private static boolean within(List<int[]> ranges, int frame) {
+            for (int[] range : ranges) {
+                if (frame >= range[0] && frame < range[1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}